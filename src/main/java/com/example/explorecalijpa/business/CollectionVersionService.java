@@ -0,0 +1,71 @@
+package com.example.explorecalijpa.business;
+
+import org.springframework.stereotype.Service;
+
+import com.example.explorecalijpa.model.CollectionVersion;
+import com.example.explorecalijpa.repo.CollectionVersionRepository;
+
+import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collection Version Service
+ *
+ * Keeps one version per collection resource (/tours, /packages and the
+ * ratings of every tour), the entity @Version columns doing the same for item
+ * resources. Writes made by the services increment it in their own
+ * transaction; Spring Data REST writes increment it right after they commit,
+ * so a reader may pair an old version with new data but never the reverse.
+ */
+@Service
+@Slf4j
+@Transactional
+public class CollectionVersionService {
+  public static final String TOURS = "/tours";
+  public static final String PACKAGES = "/packages";
+
+  private CollectionVersionRepository collectionVersionRepository;
+
+  /**
+   * Construct CollectionVersionService
+   *
+   * @param collectionVersionRepository Collection Version Repository
+   */
+  public CollectionVersionService(CollectionVersionRepository collectionVersionRepository) {
+    this.collectionVersionRepository = collectionVersionRepository;
+  }
+
+  /**
+   * Name of the collection of the ratings of a tour.
+   *
+   * @param tourId tour identifier
+   * @return the path of the collection resource.
+   */
+  public static String ratingsOf(int tourId) {
+    return TOURS + "/" + tourId + "/ratings";
+  }
+
+  /**
+   * Lookup the version of a collection.
+   *
+   * @param name path of the collection resource
+   * @return the version, 0 if the collection was never written.
+   */
+  @Transactional(TxType.SUPPORTS)
+  public long lookup(String name) {
+    return collectionVersionRepository.findVersion(name).orElse(0L);
+  }
+
+  /**
+   * Record a write to a member of a collection.
+   *
+   * @param name path of the collection resource
+   */
+  public void increment(String name) {
+    log.debug("Increment version of {}", name);
+    if (collectionVersionRepository.increment(name) == 0) {
+      collectionVersionRepository.save(new CollectionVersion(name, 1L));
+    }
+  }
+}
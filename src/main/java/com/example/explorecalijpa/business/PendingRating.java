@@ -0,0 +1,13 @@
+package com.example.explorecalijpa.business;
+
+/**
+ * A validated Tour Rating waiting in the ingestion queue to be written.
+ *
+ * @param trackingId identifier handed back to the caller
+ * @param tourId     tour identifier
+ * @param customerId customer identifier
+ * @param score      score of the tour rating
+ * @param comment    additional comment
+ */
+public record PendingRating(String trackingId, int tourId, Integer customerId, Integer score, String comment) {
+}
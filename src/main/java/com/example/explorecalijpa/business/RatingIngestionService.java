@@ -0,0 +1,215 @@
+package com.example.explorecalijpa.business;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rating Ingestion Service
+ *
+ * Write-behind mode for rating submissions, enabled with
+ * explorecali.ratings.ingest.enabled. Submissions go into a bounded queue and
+ * a single drainer writes them in batches through
+ * {@link TourRatingService#createAll(List)}. A full queue rejects new
+ * submissions, and the queue is drained before the application shuts down.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "explorecali.ratings.ingest.enabled", havingValue = "true")
+public class RatingIngestionService implements SmartLifecycle {
+
+  public enum Status {
+    PENDING, WRITTEN, FAILED
+  }
+
+  private static final long POLL_MILLIS = 100;
+  private static final long SHUTDOWN_SECONDS = 30;
+
+  private final BlockingQueue<PendingRating> queue;
+  private final Map<String, Status> statuses;
+  private final int batchSize;
+  private final TourRatingService tourRatingService;
+  private final DistributionSummary batchSizes;
+  private final Timer flushLatency;
+  private final Counter rejected;
+  private final boolean virtualThreads;
+
+  // submissions check running and offer under the read lock, stop flips running under the write lock,
+  // so no offer lands after stop has decided the queue is closed
+  private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+  private ExecutorService drainer;
+  private volatile boolean running;
+
+  /**
+   * Construct RatingIngestionService
+   *
+   * @param tourRatingService Tour Rating Service
+   * @param meterRegistry     registry of the ingestion metrics
+   * @param capacity          maximum number of queued ratings
+   * @param batchSize         maximum number of ratings written per transaction
+   * @param virtualThreads    whether the drainer runs on a virtual thread
+   */
+  public RatingIngestionService(TourRatingService tourRatingService, MeterRegistry meterRegistry,
+      @Value("${explorecali.ratings.ingest.queue-capacity:10000}") int capacity,
+      @Value("${explorecali.ratings.ingest.batch-size:500}") int batchSize,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.tourRatingService = tourRatingService;
+    this.virtualThreads = virtualThreads;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.batchSize = batchSize;
+    // Remember the outcome of the latest submissions only
+    int trackedMax = capacity * 10;
+    this.statuses = Collections.synchronizedMap(new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Status> eldest) {
+        return size() > trackedMax;
+      }
+    });
+    meterRegistry.gauge("ratings.ingest.queue.depth", queue, BlockingQueue::size);
+    this.batchSizes = meterRegistry.summary("ratings.ingest.batch.size");
+    this.flushLatency = meterRegistry.timer("ratings.ingest.flush");
+    this.rejected = meterRegistry.counter("ratings.ingest.rejected");
+  }
+
+  /**
+   * Queue a Tour Rating to be written.
+   *
+   * @param tourId     tour identifier
+   * @param customerId customer identifier
+   * @param score      score of the tour rating
+   * @param comment    additional comment
+   * @return tracking identifier of the submission
+   * @throws RejectedExecutionException if the queue is full or shutting down.
+   */
+  public String submit(int tourId, Integer customerId, Integer score, String comment)
+      throws RejectedExecutionException {
+    String trackingId = UUID.randomUUID().toString();
+    statuses.put(trackingId, Status.PENDING);
+    boolean queued;
+    runningLock.readLock().lock();
+    try {
+      queued = running && queue.offer(new PendingRating(trackingId, tourId, customerId, score, comment));
+    } finally {
+      runningLock.readLock().unlock();
+    }
+    if (!queued) {
+      statuses.remove(trackingId);
+      rejected.increment();
+      throw new RejectedExecutionException("Rating ingestion queue is full");
+    }
+    return trackingId;
+  }
+
+  /**
+   * Lookup the status of a submission.
+   *
+   * @param trackingId tracking identifier returned by submit
+   * @return the status, empty if unknown or expired.
+   */
+  public Optional<Status> lookupStatus(String trackingId) {
+    return Optional.ofNullable(statuses.get(trackingId));
+  }
+
+  private void drain() {
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingRating first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first != null) {
+          List<PendingRating> batch = new ArrayList<>(batchSize);
+          batch.add(first);
+          queue.drainTo(batch, batchSize - 1);
+          flush(batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void flush(List<PendingRating> batch) {
+    batchSizes.record(batch.size());
+    flushLatency.record(() -> {
+      try {
+        List<PendingRating> skipped = tourRatingService.createAll(batch);
+        batch.forEach(r -> statuses.put(r.trackingId(), Status.WRITTEN));
+        skipped.forEach(r -> statuses.put(r.trackingId(), Status.FAILED));
+      } catch (RuntimeException e) {
+        log.warn("Batch of {} ratings failed, writing them one by one", batch.size(), e);
+        batch.forEach(this::writeOne);
+      }
+    });
+  }
+
+  private void writeOne(PendingRating r) {
+    try {
+      tourRatingService.createNew(r.tourId(), r.customerId(), r.score(), r.comment());
+      statuses.put(r.trackingId(), Status.WRITTEN);
+    } catch (RuntimeException e) {
+      log.warn("Unable to write rating {} of tour {}", r.trackingId(), r.tourId(), e);
+      statuses.put(r.trackingId(), Status.FAILED);
+    }
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    ThreadFactory threads = virtualThreads ? Thread.ofVirtual().name("rating-ingest").factory()
+        : r -> new Thread(r, "rating-ingest");
+    drainer = Executors.newSingleThreadExecutor(threads);
+    drainer.execute(this::drain);
+  }
+
+  @Override
+  public void stop() {
+    runningLock.writeLock().lock();
+    try {
+      running = false;
+    } finally {
+      runningLock.writeLock().unlock();
+    }
+    drainer.shutdown();
+    try {
+      if (!drainer.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+        log.warn("Rating ingestion did not drain in {}s, {} ratings left", SHUTDOWN_SECONDS, queue.size());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // Catch anything left if the drainer did not finish in time
+    List<PendingRating> rest = new ArrayList<>(batchSize);
+    while (queue.drainTo(rest, batchSize) > 0) {
+      flush(rest);
+      rest = new ArrayList<>(batchSize);
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+}
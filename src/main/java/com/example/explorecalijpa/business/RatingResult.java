@@ -0,0 +1,19 @@
+package com.example.explorecalijpa.business;
+
+/**
+ * Outcome of rating a tour for one customer of a batch.
+ *
+ * @param customerId customer identifier
+ * @param status     what happened to the rating of this customer
+ */
+public record RatingResult(Integer customerId, Status status) {
+
+  public enum Status {
+    /** The rating was created. */
+    CREATED,
+    /** The customer had already rated the tour. */
+    ALREADY_RATED,
+    /** The customer appeared earlier in the same batch. */
+    DUPLICATE_IN_BATCH
+  }
+}
@@ -0,0 +1,118 @@
+package com.example.explorecalijpa.business;
+
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.explorecalijpa.repo.ScoreCount;
+import com.example.explorecalijpa.repo.TourRatingRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Score Histogram Service
+ *
+ * Holds, per tour, how many ratings have each score from 0 to 5. It is built
+ * from the database on startup and then follows TourRatingChangedEvents, so
+ * lookups never touch the database.
+ */
+@Service
+@Slf4j
+public class ScoreHistogramService {
+  public static final int MIN_SCORE = 0;
+  public static final int MAX_SCORE = 5;
+
+  private final Map<Integer, AtomicLongArray> histograms = new ConcurrentHashMap<>();
+  private TourRatingRepository tourRatingRepository;
+
+  public ScoreHistogramService(TourRatingRepository tourRatingRepository) {
+    this.tourRatingRepository = tourRatingRepository;
+  }
+
+  /**
+   * Load the histograms of every tour with one aggregate query.
+   */
+  @PostConstruct
+  public void rebuild() {
+    histograms.clear();
+    for (ScoreCount sc : tourRatingRepository.countByTourAndScore()) {
+      add(sc.tourId(), sc.score(), sc.count());
+    }
+    log.info("Loaded score histograms of {} tours", histograms.size());
+  }
+
+  /**
+   * Follow committed rating writes.
+   *
+   * @param event the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTourRatingChanged(TourRatingChangedEvent event) {
+    if (event.oldScore() != null) {
+      add(event.tourId(), event.oldScore(), -event.count());
+    }
+    if (event.newScore() != null) {
+      add(event.tourId(), event.newScore(), event.count());
+    }
+  }
+
+  /**
+   * Lookup the score histogram of a tour.
+   *
+   * @param tourId tour identifier
+   * @return number of ratings for each score, indexed by score.
+   */
+  public long[] lookupHistogram(int tourId) {
+    AtomicLongArray histogram = histograms.get(tourId);
+    long[] counts = new long[MAX_SCORE + 1];
+    if (histogram != null) {
+      for (int score = MIN_SCORE; score <= MAX_SCORE; score++) {
+        counts[score] = histogram.get(score);
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Lookup a percentile of the scores of a tour, using the nearest rank.
+   *
+   * @param tourId     tour identifier
+   * @param percentile between 0 exclusive and 100 inclusive
+   * @return the score, empty if the tour has no ratings.
+   */
+  public OptionalInt lookupPercentile(int tourId, double percentile) {
+    return percentile(lookupHistogram(tourId), percentile);
+  }
+
+  static OptionalInt percentile(long[] counts, double percentile) {
+    long total = 0;
+    for (long c : counts) {
+      total += c;
+    }
+    if (total == 0) {
+      return OptionalInt.empty();
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int score = MIN_SCORE; score <= MAX_SCORE; score++) {
+      seen += counts[score];
+      if (seen >= rank) {
+        return OptionalInt.of(score);
+      }
+    }
+    return OptionalInt.of(MAX_SCORE);
+  }
+
+  private void add(Integer tourId, Integer score, long delta) {
+    if (tourId == null || score == null || score < MIN_SCORE || score > MAX_SCORE) {
+      log.warn("Ignoring score {} of tour {} outside the histogram", score, tourId);
+      return;
+    }
+    histograms.computeIfAbsent(tourId, k -> new AtomicLongArray(MAX_SCORE + 1)).addAndGet(score, delta);
+  }
+}
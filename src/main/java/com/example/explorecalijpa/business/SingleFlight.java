@@ -0,0 +1,95 @@
+package com.example.explorecalijpa.business;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.example.explorecalijpa.config.ReplicaRoutingDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single Flight
+ *
+ * Concurrent identical calls, same method and arguments, share one execution:
+ * the first caller runs it and the others wait for its result or its exception.
+ * Every caller gets the same result object, so calls must return immutable
+ * results, e.g. List.copyOf of what they read. A call reading from the replica
+ * is never identical to one reading from the primary. Nothing is kept once the
+ * execution completes, so a result is never older than the call that produced
+ * it. The calls are counted in explorecali.single_flight.calls, tagged with the
+ * method and whether they were executed or coalesced.
+ */
+@Component
+public class SingleFlight {
+
+  private record Key(String method, List<Object> args, boolean fromReplica) {
+  }
+
+  private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private MeterRegistry meterRegistry;
+
+  /**
+   * Construct SingleFlight
+   *
+   * @param meterRegistry registry of the call counters
+   */
+  public SingleFlight(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Run a call, or wait for the identical call already running.
+   *
+   * @param method name of the call
+   * @param call   the call, returning an immutable result
+   * @param args   arguments of the call, with equals and hashCode, may be null
+   * @return the result of the call, shared with the coalesced callers.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T execute(String method, Supplier<T> call, Object... args) {
+    Key key = new Key(method, Arrays.asList(args), ReplicaRoutingDataSource.isReadingFromReplica());
+    CompletableFuture<Object> mine = new CompletableFuture<>();
+    CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      count(method, "coalesced");
+      try {
+        return (T) running.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException re) {
+          throw re;
+        }
+        if (e.getCause() instanceof Error error) {
+          throw error;
+        }
+        throw e;
+      }
+    }
+    count(method, "executed");
+    try {
+      T result = call.get();
+      mine.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  private void count(String method, String outcome) {
+    Counter.builder("explorecali.single_flight.calls")
+        .tag("method", method)
+        .tag("outcome", outcome)
+        .register(meterRegistry)
+        .increment();
+  }
+}
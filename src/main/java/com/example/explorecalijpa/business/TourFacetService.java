@@ -0,0 +1,265 @@
+package com.example.explorecalijpa.business;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Service;
+
+import com.example.explorecalijpa.model.Difficulty;
+import com.example.explorecalijpa.model.Region;
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.repo.TourRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tour Facet Service
+ *
+ * Every tour gets a dense ordinal, and every region, difficulty, package and
+ * price keeps a bitset of the ordinals of its tours. A filter ORs the bitsets
+ * of the values selected within a facet and ANDs the facets together. The
+ * count of each facet value is the cardinality of its bitset ANDed with the
+ * other facets, so it tells how many tours picking that value would give.
+ */
+@Service
+@Slf4j
+public class TourFacetService {
+
+  /**
+   * Selected facet values. Empty collections and null prices do not filter.
+   *
+   * @param regions      any of these regions
+   * @param difficulties any of these difficulties
+   * @param packageCodes any of these tour package codes
+   * @param minPrice     lowest price, inclusive
+   * @param maxPrice     highest price, inclusive
+   */
+  public record Filter(Collection<Region> regions, Collection<Difficulty> difficulties,
+      Collection<String> packageCodes, Integer minPrice, Integer maxPrice) {
+  }
+
+  /**
+   * A tour passing a filter.
+   *
+   * @param tourId      tour identifier
+   * @param title       title of the tour
+   * @param region      region of the tour
+   * @param difficulty  difficulty of the tour
+   * @param packageCode code of the tour package
+   * @param price       price of the tour
+   */
+  public record FacetedTour(Integer tourId, String title, Region region, Difficulty difficulty, String packageCode,
+      Integer price) {
+  }
+
+  /**
+   * Outcome of a filter.
+   *
+   * @param tours             the matching tours, by tour id
+   * @param regionCounts      matching tours per region, ignoring the region selection
+   * @param difficultyCounts  matching tours per difficulty, ignoring the difficulty selection
+   * @param packageCodeCounts matching tours per package, ignoring the package selection
+   */
+  public record FilterResult(List<FacetedTour> tours, Map<Region, Integer> regionCounts,
+      Map<Difficulty, Integer> difficultyCounts, Map<String, Integer> packageCodeCounts) {
+  }
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final BitSet live = new BitSet();
+  private final List<FacetedTour> byOrdinal = new ArrayList<>();
+  private final Map<Integer, Integer> ordinals = new HashMap<>();
+  private final Map<Region, BitSet> regions = new TreeMap<>();
+  private final Map<Difficulty, BitSet> difficulties = new TreeMap<>();
+  private final Map<String, BitSet> packageCodes = new TreeMap<>();
+  private final NavigableMap<Integer, BitSet> prices = new TreeMap<>();
+
+  private TourRepository tourRepository;
+
+  /**
+   * Construct TourFacetService
+   *
+   * @param tourRepository Tour Repository
+   */
+  public TourFacetService(TourRepository tourRepository) {
+    this.tourRepository = tourRepository;
+  }
+
+  /**
+   * Load every tour.
+   */
+  @PostConstruct
+  public void rebuild() {
+    lock.writeLock().lock();
+    try {
+      live.clear();
+      byOrdinal.clear();
+      ordinals.clear();
+      regions.clear();
+      difficulties.clear();
+      packageCodes.clear();
+      prices.clear();
+      tourRepository.findAll().forEach(this::add);
+      log.info("Loaded facets of {} tours", ordinals.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Follow a created or modified tour.
+   *
+   * @param tour the saved tour
+   */
+  public void tourSaved(Tour tour) {
+    lock.writeLock().lock();
+    try {
+      remove(tour.getId());
+      add(tour);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Follow a deleted tour.
+   *
+   * @param tour the deleted tour
+   */
+  public void tourDeleted(Tour tour) {
+    lock.writeLock().lock();
+    try {
+      remove(tour.getId());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Filter the tours and count the facet values in the same pass.
+   *
+   * @param filter the selected facet values
+   * @return the matching tours and the facet counts.
+   */
+  public FilterResult filter(Filter filter) {
+    lock.readLock().lock();
+    try {
+      BitSet region = anyOf(regions, filter.regions());
+      BitSet difficulty = anyOf(difficulties, filter.difficulties());
+      BitSet packageCode = anyOf(packageCodes, filter.packageCodes());
+      BitSet price = priceRange(filter.minPrice(), filter.maxPrice());
+
+      BitSet matching = and(live, region, difficulty, packageCode, price);
+      List<FacetedTour> tours = new ArrayList<>(matching.cardinality());
+      matching.stream().forEach(ordinal -> tours.add(byOrdinal.get(ordinal)));
+      tours.sort((a, b) -> a.tourId().compareTo(b.tourId()));
+
+      return new FilterResult(tours,
+          counts(regions, and(live, difficulty, packageCode, price)),
+          counts(difficulties, and(live, region, packageCode, price)),
+          counts(packageCodes, and(live, region, difficulty, price)));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void add(Tour tour) {
+    int ordinal = live.nextClearBit(0);
+    FacetedTour entry = new FacetedTour(tour.getId(), tour.getTitle(), tour.getRegion(), tour.getDifficulty(),
+        tour.getTourPackage() == null ? null : tour.getTourPackage().getCode(), tour.getPrice());
+    if (ordinal == byOrdinal.size()) {
+      byOrdinal.add(entry);
+    } else {
+      byOrdinal.set(ordinal, entry);
+    }
+    live.set(ordinal);
+    ordinals.put(entry.tourId(), ordinal);
+    set(regions, entry.region(), ordinal);
+    set(difficulties, entry.difficulty(), ordinal);
+    set(packageCodes, entry.packageCode(), ordinal);
+    set(prices, entry.price(), ordinal);
+  }
+
+  private void remove(Integer tourId) {
+    Integer ordinal = ordinals.remove(tourId);
+    if (ordinal == null) {
+      return;
+    }
+    FacetedTour old = byOrdinal.set(ordinal, null);
+    live.clear(ordinal);
+    clear(regions, old.region(), ordinal);
+    clear(difficulties, old.difficulty(), ordinal);
+    clear(packageCodes, old.packageCode(), ordinal);
+    clear(prices, old.price(), ordinal);
+  }
+
+  private BitSet priceRange(Integer min, Integer max) {
+    if (min == null && max == null) {
+      return null;
+    }
+    BitSet range = new BitSet();
+    prices.subMap(min == null ? Integer.MIN_VALUE : min, true, max == null ? Integer.MAX_VALUE : max, true)
+        .values().forEach(range::or);
+    return range;
+  }
+
+  // null when nothing is selected, so the facet does not filter
+  private static <K> BitSet anyOf(Map<K, BitSet> facet, Collection<K> selected) {
+    if (selected == null || selected.isEmpty()) {
+      return null;
+    }
+    BitSet any = new BitSet();
+    for (K value : selected) {
+      BitSet bits = facet.get(value);
+      if (bits != null) {
+        any.or(bits);
+      }
+    }
+    return any;
+  }
+
+  private static BitSet and(BitSet first, BitSet... others) {
+    BitSet result = (BitSet) first.clone();
+    for (BitSet other : others) {
+      if (other != null) {
+        result.and(other);
+      }
+    }
+    return result;
+  }
+
+  private static <K> Map<K, Integer> counts(Map<K, BitSet> facet, BitSet base) {
+    Map<K, Integer> counts = new LinkedHashMap<>();
+    facet.forEach((value, bits) -> {
+      BitSet both = (BitSet) bits.clone();
+      both.and(base);
+      counts.put(value, both.cardinality());
+    });
+    return counts;
+  }
+
+  private static <K> void set(Map<K, BitSet> facet, K value, int ordinal) {
+    if (value != null) {
+      facet.computeIfAbsent(value, k -> new BitSet()).set(ordinal);
+    }
+  }
+
+  private static <K> void clear(Map<K, BitSet> facet, K value, int ordinal) {
+    BitSet bits = value == null ? null : facet.get(value);
+    if (bits != null) {
+      bits.clear(ordinal);
+      if (bits.isEmpty()) {
+        facet.remove(value);
+      }
+    }
+  }
+}
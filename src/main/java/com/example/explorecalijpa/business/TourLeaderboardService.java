@@ -0,0 +1,205 @@
+package com.example.explorecalijpa.business;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.explorecalijpa.model.Difficulty;
+import com.example.explorecalijpa.model.Region;
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.repo.TourRatingAggregateRepository;
+import com.example.explorecalijpa.repo.TourRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tour Leaderboard Service
+ *
+ * Ranks rated tours by their Bayesian average
+ * (priorWeight * priorMean + sum) / (priorWeight + count), so a handful of
+ * perfect scores does not outrank thousands of good ones. Every facet
+ * (any, region, difficulty, region and difficulty) keeps its tours in a sorted
+ * set that is updated on each rating change, so reading the top n costs O(n)
+ * whatever the number of tours or ratings.
+ */
+@Service
+@Slf4j
+public class TourLeaderboardService {
+
+  /**
+   * A tour on the leaderboard.
+   *
+   * @param tourId  tour identifier
+   * @param title   title of the tour
+   * @param score   Bayesian average used for the ranking
+   * @param average plain average score
+   * @param count   number of ratings
+   */
+  public record RankedTour(Integer tourId, String title, double score, double average, long count) {
+  }
+
+  private record Facet(Region region, Difficulty difficulty) {
+  }
+
+  private record TourInfo(Integer id, String title, Region region, Difficulty difficulty) {
+  }
+
+  private static final Comparator<RankedTour> BEST_FIRST = Comparator.comparingDouble(RankedTour::score).reversed()
+      .thenComparing(RankedTour::tourId);
+
+  private final Map<Integer, TourInfo> tours = new ConcurrentHashMap<>();
+  private final Map<Integer, RankedTour> ranked = new ConcurrentHashMap<>();
+  // tourId -> { rating count, score sum }
+  private final Map<Integer, long[]> totals = new ConcurrentHashMap<>();
+  private final Map<Facet, NavigableSet<RankedTour>> facets = new ConcurrentHashMap<>();
+
+  private TourRepository tourRepository;
+  private TourRatingAggregateRepository aggregateRepository;
+  private double priorMean;
+  private double priorWeight;
+
+  /**
+   * Construct TourLeaderboardService
+   *
+   * @param tourRepository      Tour Repository
+   * @param aggregateRepository Tour Rating Aggregate Repository
+   * @param priorMean           score every tour is assumed to start from
+   * @param priorWeight         number of ratings the prior mean is worth
+   */
+  public TourLeaderboardService(TourRepository tourRepository, TourRatingAggregateRepository aggregateRepository,
+      @Value("${explorecali.leaderboard.prior-mean:3.0}") double priorMean,
+      @Value("${explorecali.leaderboard.prior-weight:10}") double priorWeight) {
+    this.tourRepository = tourRepository;
+    this.aggregateRepository = aggregateRepository;
+    this.priorMean = priorMean;
+    this.priorWeight = priorWeight;
+  }
+
+  /**
+   * Load the tours and their rating aggregates.
+   */
+  @PostConstruct
+  public synchronized void rebuild() {
+    tours.clear();
+    ranked.clear();
+    totals.clear();
+    facets.clear();
+    tourRepository.findAll().forEach(t -> tours.put(t.getId(), info(t)));
+    aggregateRepository.findAll().forEach(a -> {
+      totals.put(a.getTourId(), new long[] { a.getRatingCount(), a.getScoreSum() });
+      rank(a.getTourId());
+    });
+    log.info("Ranked {} of {} tours", ranked.size(), tours.size());
+  }
+
+  /**
+   * Follow committed rating writes.
+   *
+   * @param event the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onTourRatingChanged(TourRatingChangedEvent event) {
+    long[] total = totals.computeIfAbsent(event.tourId(), k -> new long[2]);
+    if (event.oldScore() != null) {
+      total[0] -= event.count();
+      total[1] -= (long) event.oldScore() * event.count();
+    }
+    if (event.newScore() != null) {
+      total[0] += event.count();
+      total[1] += (long) event.newScore() * event.count();
+    }
+    rank(event.tourId());
+  }
+
+  /**
+   * Follow a created or modified tour.
+   *
+   * @param tour the saved tour
+   */
+  public synchronized void tourSaved(Tour tour) {
+    unrank(tour.getId());
+    tours.put(tour.getId(), info(tour));
+    rank(tour.getId());
+  }
+
+  /**
+   * Follow a deleted tour.
+   *
+   * @param tour the deleted tour
+   */
+  public synchronized void tourDeleted(Tour tour) {
+    unrank(tour.getId());
+    tours.remove(tour.getId());
+    totals.remove(tour.getId());
+  }
+
+  /**
+   * Lookup the best rated tours.
+   *
+   * @param n          maximum number of tours
+   * @param region     only tours of this region, null for all
+   * @param difficulty only tours of this difficulty, null for all
+   * @return up to n tours, best first.
+   */
+  public List<RankedTour> lookupTop(int n, Region region, Difficulty difficulty) {
+    NavigableSet<RankedTour> set = facets.get(new Facet(region, difficulty));
+    List<RankedTour> top = new ArrayList<>(n);
+    if (set != null) {
+      for (RankedTour t : set) {
+        if (top.size() == n) {
+          break;
+        }
+        top.add(t);
+      }
+    }
+    return top;
+  }
+
+  private void rank(Integer tourId) {
+    unrank(tourId);
+    TourInfo info = tours.get(tourId);
+    long[] total = totals.get(tourId);
+    if (info == null || total == null || total[0] <= 0) {
+      return;
+    }
+    long count = total[0];
+    long sum = total[1];
+    double score = (priorWeight * priorMean + sum) / (priorWeight + count);
+    RankedTour entry = new RankedTour(tourId, info.title(), score, (double) sum / count, count);
+    ranked.put(tourId, entry);
+    for (Facet f : facetsOf(info)) {
+      facets.computeIfAbsent(f, k -> new ConcurrentSkipListSet<>(BEST_FIRST)).add(entry);
+    }
+  }
+
+  private void unrank(Integer tourId) {
+    RankedTour old = ranked.remove(tourId);
+    TourInfo info = tours.get(tourId);
+    if (old != null && info != null) {
+      for (Facet f : facetsOf(info)) {
+        NavigableSet<RankedTour> set = facets.get(f);
+        if (set != null) {
+          set.remove(old);
+        }
+      }
+    }
+  }
+
+  private static List<Facet> facetsOf(TourInfo info) {
+    return List.of(new Facet(null, null), new Facet(info.region(), null),
+        new Facet(null, info.difficulty()), new Facet(info.region(), info.difficulty()));
+  }
+
+  private static TourInfo info(Tour tour) {
+    return new TourInfo(tour.getId(), tour.getTitle(), tour.getRegion(), tour.getDifficulty());
+  }
+}
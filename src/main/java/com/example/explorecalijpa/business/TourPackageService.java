@@ -15,15 +15,20 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional
 public class TourPackageService {
   private TourPackageRepository tourPackageRepository;
+  private CollectionVersionService collectionVersionService;
 
-  public TourPackageService(TourPackageRepository tourPackageRepository) {
+  public TourPackageService(TourPackageRepository tourPackageRepository,
+      CollectionVersionService collectionVersionService) {
     this.tourPackageRepository = tourPackageRepository;
+    this.collectionVersionService = collectionVersionService;
   }
 
   public TourPackage createTourPackage(String code, String name) {
     log.info("Create tour package {}:{}",code, name);
-    return tourPackageRepository.findById(code)
-        .orElse(tourPackageRepository.save(new TourPackage(code, name)));
+    return tourPackageRepository.findById(code).orElseGet(() -> {
+      collectionVersionService.increment(CollectionVersionService.PACKAGES);
+      return tourPackageRepository.save(new TourPackage(code, name));
+    });
   }
 
   public List<TourPackage> lookupAll() {
@@ -0,0 +1,147 @@
+package com.example.explorecalijpa.business;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.explorecalijpa.model.TourRatingAggregate;
+import com.example.explorecalijpa.repo.TourRatingAggregateRepository;
+
+import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tour Rating Aggregate Service
+ *
+ * Keeps the per tour count, sum, min and max of the scores up to date. The
+ * record methods join the transaction of the rating write that calls them.
+ */
+@Service
+@Slf4j
+@Transactional
+public class TourRatingAggregateService {
+  private TourRatingAggregateRepository aggregateRepository;
+
+  /**
+   * Construct TourRatingAggregateService
+   *
+   * @param aggregateRepository Tour Rating Aggregate Repository
+   */
+  public TourRatingAggregateService(TourRatingAggregateRepository aggregateRepository) {
+    this.aggregateRepository = aggregateRepository;
+  }
+
+  /**
+   * Record several new ratings of a tour with the same score.
+   *
+   * @param tourId tour identifier
+   * @param score  score of the new ratings
+   * @param count  number of new ratings
+   */
+  public void recordAdded(int tourId, int score, int count) {
+    if (count == 0) {
+      return;
+    }
+    aggregateRepository.addScores(tourId, count, (long) score * count, score, score);
+  }
+
+  /**
+   * Record the removal of a rating of a tour.
+   *
+   * @param tourId tour identifier
+   * @param score  score of the removed rating
+   */
+  public void recordRemoved(int tourId, int score) {
+    aggregateRepository.removeScore(tourId, score);
+    aggregateRepository.refreshBounds(tourId, score);
+  }
+
+  /**
+   * Record the change of the score of a rating.
+   *
+   * @param tourId   tour identifier
+   * @param oldScore score before the change
+   * @param newScore score after the change
+   */
+  public void recordChanged(int tourId, int oldScore, int newScore) {
+    if (oldScore != newScore) {
+      recordRemoved(tourId, oldScore);
+      recordAdded(tourId, newScore, 1);
+    }
+  }
+
+  /**
+   * Lookup the aggregate of a tour.
+   *
+   * @param tourId tour identifier
+   * @return the aggregate, empty if the tour was never rated.
+   */
+  @Transactional(TxType.SUPPORTS)
+  public Optional<TourRatingAggregate> lookup(int tourId) {
+    return aggregateRepository.findById(tourId);
+  }
+
+  /**
+   * Lookup the aggregates of several tours.
+   *
+   * @param tourIds tour identifiers
+   * @return one aggregate per existing tour, empty for a tour never rated.
+   */
+  @Transactional(TxType.SUPPORTS)
+  public List<TourRatingAggregate> lookup(Collection<Integer> tourIds) {
+    return aggregateRepository.findByTourIds(tourIds);
+  }
+
+  /**
+   * Compare every aggregate with the tour_rating table, correcting and
+   * reporting any drift. The comparison reads a snapshot, but each correction
+   * is recomputed in the database, so ratings written meanwhile are never
+   * lost. Scheduled by explorecali.rating-aggregate.reconcile-cron, disabled
+   * by default.
+   *
+   * @return the tour ids whose aggregate drifted.
+   */
+  @Scheduled(cron = "${explorecali.rating-aggregate.reconcile-cron:-}")
+  public List<Integer> reconcile() {
+    Map<Integer, TourRatingAggregate> stored = new HashMap<>();
+    aggregateRepository.findAll().forEach(a -> stored.put(a.getTourId(), a));
+
+    List<Integer> drifted = new ArrayList<>();
+    for (TourRatingAggregate actual : aggregateRepository.computeFromRatings()) {
+      TourRatingAggregate current = stored.remove(actual.getTourId());
+      if (current == null || !sameTotals(current, actual)) {
+        log.warn("Rating aggregate drift for tour {}: stored {} actual {}", actual.getTourId(), current, actual);
+        drifted.add(actual.getTourId());
+        if (aggregateRepository.recompute(actual.getTourId()) == 0) {
+          aggregateRepository.save(actual);
+        }
+      }
+    }
+    // Whatever is left had no ratings when the snapshot was read
+    for (TourRatingAggregate orphan : stored.values()) {
+      if (orphan.getRatingCount() != 0) {
+        log.warn("Rating aggregate drift for tour {}: stored {} actual none", orphan.getTourId(), orphan);
+        drifted.add(orphan.getTourId());
+        aggregateRepository.recompute(orphan.getTourId());
+      }
+      aggregateRepository.deleteIfUnrated(orphan.getTourId());
+    }
+    log.info("Reconciled rating aggregates, {} drifted", drifted.size());
+    return drifted;
+  }
+
+  private static boolean sameTotals(TourRatingAggregate a, TourRatingAggregate b) {
+    return Objects.equals(a.getRatingCount(), b.getRatingCount())
+        && Objects.equals(a.getScoreSum(), b.getScoreSum())
+        && Objects.equals(a.getMinScore(), b.getMinScore())
+        && Objects.equals(a.getMaxScore(), b.getMaxScore());
+  }
+}
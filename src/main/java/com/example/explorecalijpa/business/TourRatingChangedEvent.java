@@ -0,0 +1,14 @@
+package com.example.explorecalijpa.business;
+
+/**
+ * Published by TourRatingService whenever scores of a tour are added, removed
+ * or changed, so in-memory views can follow the ratings once the transaction
+ * commits.
+ *
+ * @param tourId   tour identifier
+ * @param oldScore score before the change, null for new ratings
+ * @param newScore score after the change, null for deleted ratings
+ * @param count    number of ratings with this change
+ */
+public record TourRatingChangedEvent(int tourId, Integer oldScore, Integer newScore, int count) {
+}
@@ -1,42 +1,76 @@
 package com.example.explorecalijpa.business;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import com.example.explorecalijpa.model.Tour;
 import com.example.explorecalijpa.model.TourRating;
+import com.example.explorecalijpa.model.TourRatingAggregate;
 import com.example.explorecalijpa.repo.TourRatingRepository;
+import com.example.explorecalijpa.repo.TourRatingRow;
 import com.example.explorecalijpa.repo.TourRepository;
 
 import jakarta.transaction.Transactional;
-import jakarta.validation.ConstraintViolationException;
+import jakarta.transaction.Transactional.TxType;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Tour Rating Service
  *
+ * The rating reads go through SingleFlight, so concurrent identical reads run
+ * their queries once. They do not open a transaction of their own, so callers
+ * waiting for the shared result hold no connection.
+ *
  * Created by Mary Ellen Bowman.
  */
 @Service
 @Slf4j
 @Transactional
 public class TourRatingService {
+  private static final int PROBE_CHUNK_SIZE = 1000;
+
   private TourRatingRepository tourRatingRepository;
   private TourRepository tourRepository;
+  private TourRatingAggregateService aggregateService;
+  private CollectionVersionService collectionVersionService;
+  private SingleFlight singleFlight;
+  private ApplicationEventPublisher eventPublisher;
 
   /**
    * Construct TourRatingService
    *
-   * @param tourRatingRepository Tour Rating Repository
-   * @param tourRepository       Tour Repository
+   * @param tourRatingRepository     Tour Rating Repository
+   * @param tourRepository           Tour Repository
+   * @param aggregateService         Tour Rating Aggregate Service
+   * @param collectionVersionService Collection Version Service
+   * @param singleFlight             coalesces the concurrent identical reads
+   * @param eventPublisher           publisher of TourRatingChangedEvents
    */
-  public TourRatingService(TourRatingRepository tourRatingRepository, TourRepository tourRepository) {
+  public TourRatingService(TourRatingRepository tourRatingRepository, TourRepository tourRepository,
+      TourRatingAggregateService aggregateService, CollectionVersionService collectionVersionService,
+      SingleFlight singleFlight, ApplicationEventPublisher eventPublisher) {
     this.tourRatingRepository = tourRatingRepository;
     this.tourRepository = tourRepository;
+    this.aggregateService = aggregateService;
+    this.collectionVersionService = collectionVersionService;
+    this.singleFlight = singleFlight;
+    this.eventPublisher = eventPublisher;
   }
 
   /**
@@ -51,8 +85,52 @@ public class TourRatingService {
    */
   public TourRating createNew(int tourId, Integer customerId, Integer score, String comment) throws NoSuchElementException {
     log.info("Create a tour rating for tour {} and customer {}", tourId, String.valueOf(customerId));
-    return tourRatingRepository.save(new TourRating(verifyTour(tourId), customerId,
+    TourRating rating = tourRatingRepository.save(new TourRating(verifyTour(tourId), customerId,
         score, comment));
+    ratingsAdded(tourId, score, 1);
+    return rating;
+  }
+
+  /**
+   * Create the Tour Ratings of several tours in one transaction, reading
+   * every tour once, probing the existing ratings with one IN query per tour
+   * and chunk of customers, and inserting in JDBC batches.
+   *
+   * @param ratings the ratings to create
+   * @return the ratings that were skipped because their Tour does not exist,
+   *         the customer had already rated the tour, or an earlier rating of
+   *         the batch was for the same tour and customer.
+   */
+  public List<PendingRating> createAll(List<PendingRating> ratings) {
+    log.info("Create {} tour ratings", ratings.size());
+    Map<Integer, Tour> tours = new HashMap<>();
+    tourRepository.findAllById(ratings.stream().map(PendingRating::tourId).distinct().toList())
+        .forEach(t -> tours.put(t.getId(), t));
+    // tourId -> customers of the batch, then -> customers who already rated the tour
+    Map<Integer, Set<Integer>> customers = new HashMap<>();
+    ratings.stream().filter(r -> tours.containsKey(r.tourId()))
+        .forEach(r -> customers.computeIfAbsent(r.tourId(), k -> new LinkedHashSet<>()).add(r.customerId()));
+    Map<Integer, Set<Integer>> alreadyRated = new HashMap<>();
+    customers.forEach((tourId, ids) -> alreadyRated.put(tourId, alreadyRated(tourId, ids)));
+
+    List<PendingRating> skipped = new ArrayList<>();
+    List<TourRating> entities = new ArrayList<>(ratings.size());
+    // tourId -> score -> number of new ratings, folded into the aggregates once per pair
+    Map<Integer, Map<Integer, Integer>> added = new HashMap<>();
+    for (PendingRating r : ratings) {
+      Tour tour = tours.get(r.tourId());
+      // adding the customer makes any later rating of the batch for the same pair a duplicate
+      if (tour == null || !alreadyRated.get(r.tourId()).add(r.customerId())) {
+        skipped.add(r);
+      } else {
+        entities.add(new TourRating(tour, r.customerId(), r.score(), r.comment()));
+        added.computeIfAbsent(r.tourId(), k -> new HashMap<>()).merge(r.score(), 1, Integer::sum);
+      }
+    }
+    tourRatingRepository.saveAll(entities);
+    added.forEach((tourId, scores) -> scores.forEach((score, count) ->
+        ratingsAdded(tourId, score, count)));
+    return skipped;
   }
 
   /**
@@ -77,16 +155,79 @@ public class TourRatingService {
   }
 
   /**
-   * Get a page of tour ratings for a tour.
+   * Get all tour ratings for a tour.
    *
-   * @param tourId   tour identifier
-   * @param pageable page parameters to determine which elements to fetch
-   * @return Page of TourRatings
+   * @param tourId tour identifier
+   * @return unmodifiable List of rating rows, shared with concurrent callers
    * @throws NoSuchElementException if no Tour found.
    */
-  public List<TourRating> lookupRatings(int tourId) throws NoSuchElementException {
+  @Transactional(TxType.SUPPORTS)
+  public List<TourRatingRow> lookupRatings(int tourId) throws NoSuchElementException {
     log.info("Lookup ratings for tour {}", tourId);
-    return tourRatingRepository.findByTourId(verifyTour(tourId).getId());
+    return singleFlight.execute("lookupRatings", () ->
+        List.copyOf(tourRatingRepository.findRowsByTourId(verifyTour(tourId).getId())), tourId);
+  }
+
+  /**
+   * Export the tour ratings one row at a time, without loading the table or
+   * the tours into memory.
+   *
+   * @param tourIdFrom lowest tour id, inclusive, null for no lower bound
+   * @param tourIdTo   highest tour id, exclusive, null for no upper bound
+   * @param customerId only the ratings of this customer, null for everybody
+   * @param sink       receives every rating in id order
+   */
+  public void exportRatings(Integer tourIdFrom, Integer tourIdTo, Integer customerId, Consumer<TourRatingRow> sink) {
+    log.info("Export tour ratings of tours [{}, {}) customer {}", tourIdFrom, tourIdTo, customerId);
+    tourRatingRepository.streamAll(tourIdFrom, tourIdTo, customerId, sink);
+  }
+
+  /**
+   * Get a page of tour ratings for a tour.
+   *
+   * @param tourId  tour identifier
+   * @param afterId id of the last rating of the previous page, null for the
+   *                first page
+   * @param limit   maximum number of ratings in the page
+   * @return Window of rating rows, shared with concurrent callers
+   * @throws NoSuchElementException if no Tour found.
+   */
+  @Transactional(TxType.SUPPORTS)
+  public Window<TourRatingRow> lookupRatings(int tourId, Integer afterId, int limit) throws NoSuchElementException {
+    log.info("Lookup ratings for tour {} after {}", tourId, afterId);
+    return singleFlight.execute("lookupRatingsPage", () -> {
+      List<TourRatingRow> rows = tourRatingRepository.findRowsByTourId(verifyTour(tourId).getId(),
+          afterId == null ? Integer.MIN_VALUE : afterId, Limit.of(limit + 1));
+      return window(rows, limit, row -> Map.of("id", row.id()));
+    }, tourId, afterId, limit);
+  }
+
+  /**
+   * Get a page of the tour ratings of a customer, ordered by tour.
+   *
+   * @param customerId  customer identifier
+   * @param afterTourId tour id of the last rating of the previous page, null
+   *                    for the first page
+   * @param limit       maximum number of ratings in the page
+   * @return Window of rating rows, shared with concurrent callers
+   */
+  @Transactional(TxType.SUPPORTS)
+  public Window<TourRatingRow> lookupCustomerRatings(int customerId, Integer afterTourId, int limit) {
+    log.info("Lookup ratings of customer {} after tour {}", customerId, afterTourId);
+    return singleFlight.execute("lookupCustomerRatings", () -> {
+      List<TourRatingRow> rows = tourRatingRepository.findRowsByCustomerId(customerId,
+          afterTourId == null ? Integer.MIN_VALUE : afterTourId, Limit.of(limit + 1));
+      return window(rows, limit, row -> Map.of("tourId", row.tourId()));
+    }, customerId, afterTourId, limit);
+  }
+
+  // The rows were read with one extra row, which tells whether there is a next page.
+  // The page is copied to an unmodifiable list as the window is shared with concurrent callers.
+  private static Window<TourRatingRow> window(List<TourRatingRow> rows, int limit,
+      Function<TourRatingRow, Map<String, ?>> keyset) {
+    boolean hasNext = rows.size() > limit;
+    List<TourRatingRow> page = List.copyOf(hasNext ? rows.subList(0, limit) : rows);
+    return Window.from(page, i -> ScrollPosition.forward(keyset.apply(page.get(i))), hasNext);
   }
 
   /**
@@ -102,8 +243,10 @@ public class TourRatingService {
       throws NoSuchElementException {
     log.info("Update tour {} customer {}", tourId, customerId);
     TourRating rating = verifyTourRating(tourId, customerId);
+    int oldScore = rating.getScore();
     rating.setScore(score);
     rating.setComment(comment);
+    ratingChanged(tourId, oldScore, score);
     return tourRatingRepository.save(rating);
   }
 
@@ -121,8 +264,10 @@ public class TourRatingService {
       throws NoSuchElementException {
     log.info("Update some of tour {} customer {}", tourId, customerId);
     TourRating rating = verifyTourRating(tourId, customerId);
+    int oldScore = rating.getScore();
     score.ifPresent(s ->rating.setScore(s));
     comment.ifPresent(c -> rating.setComment(c));
+    ratingChanged(tourId, oldScore, rating.getScore());
     return tourRatingRepository.save(rating);
   }
 
@@ -137,37 +282,118 @@ public class TourRatingService {
     log.info("Delete rating for tour {} customer {}", tourId, customerId);
     TourRating rating = verifyTourRating(tourId, customerId);
     tourRatingRepository.delete(rating);
+    ratingRemoved(tourId, rating.getScore());
   }
 
   /**
-   * Get the average score of a tour.
+   * Get the average score of a tour, read from its rating aggregate.
    *
    * @param tourId tour identifier
    * @return average score as a Double.
    * @throws NoSuchElementException
    */
+  @Transactional(TxType.SUPPORTS)
   public Double getAverageScore(int tourId) throws NoSuchElementException {
-    List<TourRating> ratings = tourRatingRepository.findByTourId(verifyTour(tourId).getId());
-    OptionalDouble average = ratings.stream().mapToInt((rating) -> rating.getScore()).average();
-    return average.isPresent() ? average.getAsDouble() : null;
+    return singleFlight.execute("getAverageScore", () -> {
+      verifyTour(tourId);
+      return aggregateService.lookup(tourId).map(TourRatingAggregate::getAverage).orElse(null);
+    }, tourId);
   }
 
   /**
-   * Service for many customers to give the same score for a service
+   * Get the average scores of several tours, reading their rating aggregates
+   * with one query per chunk of ids.
+   *
+   * @param tourIds tour identifiers, duplicates are ignored
+   * @return average score by tour id in request order, null for a tour
+   *         without ratings. Tours that do not exist are left out.
+   */
+  @Transactional(TxType.SUPPORTS)
+  public Map<Integer, Double> getAverageScores(List<Integer> tourIds) {
+    log.info("Lookup average scores of {} tours", tourIds.size());
+    List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(tourIds));
+    Map<Integer, Double> found = new HashMap<>();
+    for (int from = 0; from < distinct.size(); from += PROBE_CHUNK_SIZE) {
+      aggregateService.lookup(distinct.subList(from, Math.min(from + PROBE_CHUNK_SIZE, distinct.size())))
+          .forEach(a -> found.put(a.getTourId(), a.getAverage()));
+    }
+    Map<Integer, Double> averages = new LinkedHashMap<>();
+    distinct.stream().filter(found::containsKey).forEach(id -> averages.put(id, found.get(id)));
+    return averages;
+  }
+
+  /**
+   * Service for many customers to give the same score for a service.
+   * Customers that already rated the tour are reported and skipped instead of
+   * failing the whole batch.
    *
    * @param tourId
    * @param score
    * @param customers
+   * @return the outcome for every customer, in request order.
+   * @throws NoSuchElementException if no Tour found.
    */
-  public void rateMany(int tourId,  int score, List<Integer> customers) {
-    Tour tour = verifyTour(tourId);
+  public List<RatingResult> rateMany(int tourId, int score, List<Integer> customers) throws NoSuchElementException {
+    log.info("Rate tour {} for {} customers", tourId, customers.size());
+    verifyTour(tourId);
+    Set<Integer> alreadyRated = alreadyRated(tourId, new LinkedHashSet<>(customers));
+
+    List<RatingResult> results = new ArrayList<>(customers.size());
+    List<Integer> toInsert = new ArrayList<>(customers.size());
+    Set<Integer> seen = new HashSet<>();
     for (Integer c : customers) {
-      if (tourRatingRepository.findByTourIdAndCustomerId(tourId, c).isPresent()) {
-        throw new ConstraintViolationException("Unable to create duplicate ratings", null);
+      if (alreadyRated.contains(c)) {
+        results.add(new RatingResult(c, RatingResult.Status.ALREADY_RATED));
+      } else if (!seen.add(c)) {
+        results.add(new RatingResult(c, RatingResult.Status.DUPLICATE_IN_BATCH));
+      } else {
+        toInsert.add(c);
+        results.add(new RatingResult(c, RatingResult.Status.CREATED));
       }
-      tourRatingRepository.save(new TourRating(tour, c, score));
     }
+    tourRatingRepository.insertAll(tourId, score, toInsert);
+    ratingsAdded(tourId, score, toInsert.size());
+    return results;
   }
+
+  // The customers who already rated a tour, probed with one IN query per chunk of customers
+  private Set<Integer> alreadyRated(int tourId, Set<Integer> customers) {
+    Set<Integer> alreadyRated = new HashSet<>();
+    List<Integer> distinct = new ArrayList<>(customers);
+    for (int from = 0; from < distinct.size(); from += PROBE_CHUNK_SIZE) {
+      alreadyRated.addAll(tourRatingRepository.findCustomerIdsByTourIdAndCustomerIdIn(tourId,
+          distinct.subList(from, Math.min(from + PROBE_CHUNK_SIZE, distinct.size()))));
+    }
+    return alreadyRated;
+  }
+
+  /*
+   * The aggregates and the version of the ratings collection are updated in the
+   * current transaction, the in-memory views by TourRatingChangedEvent listeners.
+   */
+  private void ratingsAdded(int tourId, int score, int count) {
+    if (count > 0) {
+      aggregateService.recordAdded(tourId, score, count);
+      collectionVersionService.increment(CollectionVersionService.ratingsOf(tourId));
+      eventPublisher.publishEvent(new TourRatingChangedEvent(tourId, null, score, count));
+    }
+  }
+
+  private void ratingRemoved(int tourId, int score) {
+    aggregateService.recordRemoved(tourId, score);
+    collectionVersionService.increment(CollectionVersionService.ratingsOf(tourId));
+    eventPublisher.publishEvent(new TourRatingChangedEvent(tourId, score, null, 1));
+  }
+
+  private void ratingChanged(int tourId, int oldScore, int newScore) {
+    // the comment may have changed even when the score did not
+    collectionVersionService.increment(CollectionVersionService.ratingsOf(tourId));
+    if (oldScore != newScore) {
+      aggregateService.recordChanged(tourId, oldScore, newScore);
+      eventPublisher.publishEvent(new TourRatingChangedEvent(tourId, oldScore, newScore, 1));
+    }
+  }
+
   /**
    * Verify and return the Tour given a tourId.
    *
@@ -0,0 +1,190 @@
+package com.example.explorecalijpa.business;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Service;
+
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.repo.TourRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tour Search Service
+ *
+ * Full text search over the title, keywords, blurb, description and bullets
+ * of the tours. An inverted index maps every term to the tours containing it
+ * and is ranked with BM25, a title or keyword hit weighing more than one in
+ * the body. The index is built from the database on startup and then follows
+ * tour writes, so searches never touch the database.
+ */
+@Service
+@Slf4j
+public class TourSearchService {
+
+  /**
+   * A tour matching a search.
+   *
+   * @param tourId tour identifier
+   * @param title  title of the tour
+   * @param score  BM25 relevance, higher is better
+   */
+  public record SearchHit(Integer tourId, String title, double score) {
+  }
+
+  private record Document(String title, Map<String, Double> termFrequencies, double length) {
+  }
+
+  private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final double TITLE_WEIGHT = 3;
+  private static final double KEYWORDS_WEIGHT = 2;
+  private static final double BODY_WEIGHT = 1;
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+
+  private static final Comparator<SearchHit> BEST_FIRST = Comparator.comparingDouble(SearchHit::score).reversed()
+      .thenComparing(SearchHit::tourId);
+
+  // term -> tourId -> weighted term frequency
+  private final Map<String, Map<Integer, Double>> postings = new ConcurrentHashMap<>();
+  private final Map<Integer, Document> documents = new ConcurrentHashMap<>();
+  private volatile double totalLength;
+
+  private TourRepository tourRepository;
+
+  /**
+   * Construct TourSearchService
+   *
+   * @param tourRepository Tour Repository
+   */
+  public TourSearchService(TourRepository tourRepository) {
+    this.tourRepository = tourRepository;
+  }
+
+  /**
+   * Index every tour.
+   */
+  @PostConstruct
+  public synchronized void rebuild() {
+    postings.clear();
+    documents.clear();
+    totalLength = 0;
+    tourRepository.findAll().forEach(this::index);
+    log.info("Indexed {} tours, {} terms", documents.size(), postings.size());
+  }
+
+  /**
+   * Index a created or modified tour.
+   *
+   * @param tour the saved tour
+   */
+  public synchronized void tourSaved(Tour tour) {
+    unindex(tour.getId());
+    index(tour);
+  }
+
+  /**
+   * Remove a deleted tour from the index.
+   *
+   * @param tour the deleted tour
+   */
+  public synchronized void tourDeleted(Tour tour) {
+    unindex(tour.getId());
+  }
+
+  /**
+   * Search the tours.
+   *
+   * @param query free text, every term is optional
+   * @param limit maximum number of hits
+   * @return up to limit hits, most relevant first.
+   */
+  public List<SearchHit> search(String query, int limit) {
+    int n = documents.size();
+    if (n == 0) {
+      return List.of();
+    }
+    double averageLength = Math.max(totalLength / n, 1);
+    Map<Integer, Double> scores = new HashMap<>();
+    for (String term : new LinkedHashSet<>(tokenize(query))) {
+      Map<Integer, Double> posting = postings.get(term);
+      if (posting == null) {
+        continue;
+      }
+      int df = posting.size();
+      double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+      posting.forEach((tourId, tf) -> {
+        Document doc = documents.get(tourId);
+        if (doc != null) {
+          double norm = K1 * (1 - B + B * doc.length() / averageLength);
+          scores.merge(tourId, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+        }
+      });
+    }
+    List<SearchHit> hits = new ArrayList<>(scores.size());
+    scores.forEach((tourId, score) -> {
+      Document doc = documents.get(tourId);
+      if (doc != null) {
+        hits.add(new SearchHit(tourId, doc.title(), score));
+      }
+    });
+    hits.sort(BEST_FIRST);
+    return hits.size() > limit ? hits.subList(0, limit) : hits;
+  }
+
+  static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    if (text != null) {
+      for (String token : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+        if (!token.isEmpty()) {
+          tokens.add(token);
+        }
+      }
+    }
+    return tokens;
+  }
+
+  private void index(Tour tour) {
+    Map<String, Double> tf = new HashMap<>();
+    addField(tf, tour.getTitle(), TITLE_WEIGHT);
+    addField(tf, tour.getKeywords(), KEYWORDS_WEIGHT);
+    addField(tf, tour.getBlurb(), BODY_WEIGHT);
+    addField(tf, tour.getDescription(), BODY_WEIGHT);
+    addField(tf, tour.getBullets(), BODY_WEIGHT);
+    double length = tf.values().stream().mapToDouble(Double::doubleValue).sum();
+
+    documents.put(tour.getId(), new Document(tour.getTitle(), tf, length));
+    tf.forEach((term, frequency) -> postings.computeIfAbsent(term, k -> new ConcurrentHashMap<>())
+        .put(tour.getId(), frequency));
+    totalLength += length;
+  }
+
+  private void unindex(Integer tourId) {
+    Document old = documents.remove(tourId);
+    if (old == null) {
+      return;
+    }
+    for (String term : old.termFrequencies().keySet()) {
+      postings.computeIfPresent(term, (k, posting) -> {
+        posting.remove(tourId);
+        return posting.isEmpty() ? null : posting;
+      });
+    }
+    totalLength -= old.length();
+  }
+
+  private static void addField(Map<String, Double> tf, String text, double weight) {
+    for (String token : tokenize(text)) {
+      tf.merge(token, weight, Double::sum);
+    }
+  }
+}
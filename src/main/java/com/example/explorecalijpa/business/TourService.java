@@ -1,30 +1,43 @@
 package com.example.explorecalijpa.business;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import com.example.explorecalijpa.model.Difficulty;
 import com.example.explorecalijpa.model.Region;
 import com.example.explorecalijpa.model.Tour;
 import com.example.explorecalijpa.model.TourPackage;
+import com.example.explorecalijpa.model.TourSummary;
 import com.example.explorecalijpa.repo.TourPackageRepository;
 import com.example.explorecalijpa.repo.TourRepository;
 
 import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
 @Transactional
 public class TourService {
+  private static final int ID_CHUNK_SIZE = 1000;
+
   private TourPackageRepository tourPackageRepository;
   private TourRepository tourRepository;
+  private CollectionVersionService collectionVersionService;
 
-  public TourService(TourPackageRepository tourPackageRepository, TourRepository tourRepository) {
+  public TourService(TourPackageRepository tourPackageRepository, TourRepository tourRepository,
+      CollectionVersionService collectionVersionService) {
     this.tourPackageRepository = tourPackageRepository;
     this.tourRepository = tourRepository;
+    this.collectionVersionService = collectionVersionService;
   }
 
   public Tour createTour(String tourPackageName, String title,
@@ -33,20 +46,53 @@ public class TourService {
     log.info("Create tour {} for package {}", title, tourPackageName);
     TourPackage tourPackage = tourPackageRepository.findByName(tourPackageName)
         .orElseThrow(() -> new RuntimeException("Tour Package not found for id:" + tourPackageName));
+    collectionVersionService.increment(CollectionVersionService.TOURS);
     return tourRepository.save(new Tour(title, description, blurb,
         price, duration, bullets, keywords, tourPackage, difficulty, region));
   }
 
-  public List<Tour> lookupByDifficulty(Difficulty difficulty) {
+  @Transactional(TxType.SUPPORTS)
+  public List<TourSummary> lookupByDifficulty(Difficulty difficulty) {
     log.info("Lookup tours by difficulty {}", difficulty);
     return tourRepository.findByDifficulty(difficulty);
   }
 
-  public List<Tour> lookupByPackage(String tourPackageCode) {
+  @Transactional(TxType.SUPPORTS)
+  public List<TourSummary> lookupByPackage(String tourPackageCode) {
     log.info("Lookup tour by code {}", tourPackageCode);
     return tourRepository.findByTourPackageCode(tourPackageCode);
   }
 
+  @Transactional(TxType.SUPPORTS)
+  public Page<TourSummary> lookupByPrice(Integer min, Integer max, Pageable pageable) {
+    log.info("Lookup tours priced from {} to {}", min, max);
+    return tourRepository.findByPriceBetween(min, max, pageable);
+  }
+
+  @Transactional(TxType.SUPPORTS)
+  public Page<TourSummary> lookupSummaries(Pageable pageable) {
+    log.info("Lookup tour summaries {}", pageable);
+    return tourRepository.findAllProjectedBy(pageable);
+  }
+
+  /**
+   * Lookup the summaries of several tours with one IN query per chunk of ids.
+   *
+   * @param ids tour identifiers, duplicates are ignored
+   * @return the summaries of the tours that exist, in request order.
+   */
+  @Transactional(TxType.SUPPORTS)
+  public List<TourSummary> lookupSummaries(List<Integer> ids) {
+    log.info("Lookup summaries of {} tours", ids.size());
+    List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+    Map<Integer, TourSummary> found = new HashMap<>();
+    for (int from = 0; from < distinct.size(); from += ID_CHUNK_SIZE) {
+      tourRepository.findByIdIn(distinct.subList(from, Math.min(from + ID_CHUNK_SIZE, distinct.size())))
+          .forEach(summary -> found.put(summary.getId(), summary));
+    }
+    return distinct.stream().filter(found::containsKey).map(found::get).toList();
+  }
+
   public long total() {
     log.info("Get total tours");
     return tourRepository.count();
@@ -0,0 +1,256 @@
+package com.example.explorecalijpa.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.web.util.UrlPathHelper;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * The one authorization decision of every request, made by the Spring
+ * Security filter chain.
+ *
+ * The rules are declared in order, the first matching rule wins, and they are
+ * compiled once into a table keyed by method and first path segment, so a
+ * request only tries the few rules of its own route. Patterns are literal
+ * segments, "*" for any one segment and a trailing "/**" for any rest,
+ * including none. The roles of the caller are resolved once per request and
+ * kept as a request attribute for the later layers, see rolesOf.
+ */
+public class AuthorizationRules implements AuthorizationManager<RequestAuthorizationContext> {
+
+  /** Request attribute holding the role names of the caller, without the ROLE_ prefix. */
+  public static final String ROLES_ATTRIBUTE = AuthorizationRules.class.getName() + ".roles";
+
+  private static final AuthenticationTrustResolver TRUST_RESOLVER = new AuthenticationTrustResolverImpl();
+  // Decoded, as Spring MVC routes "/%74ours" to "/tours"
+  private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+  private static final String ROLE_PREFIX = "ROLE_";
+  private static final String ANY_SEGMENT = "*";
+  private static final String ANY_REST = "**";
+
+  /**
+   * What a rule asks of the caller.
+   *
+   * @param authenticated a caller who is not anonymous
+   * @param anyOfRoles    one of these roles, empty for no role
+   */
+  private record Requirement(boolean authenticated, Set<String> anyOfRoles) {
+    static final Requirement PERMIT_ALL = new Requirement(false, Set.of());
+    static final Requirement AUTHENTICATED = new Requirement(true, Set.of());
+  }
+
+  private record Rule(String[] segments, boolean anyRest, Requirement requirement) {
+    boolean matches(String[] path) {
+      if (anyRest ? path.length < segments.length : path.length != segments.length) {
+        return false;
+      }
+      for (int i = 0; i < segments.length; i++) {
+        if (!segments[i].equals(ANY_SEGMENT) && !segments[i].equals(path[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private record Declared(HttpMethod method, Rule rule) {
+  }
+
+  // method -> first path segment -> rules in declaration order
+  private final Map<HttpMethod, Map<String, List<Rule>>> table = new HashMap<>();
+  // for methods no rule names, e.g. custom ones
+  private final Map<String, List<Rule>> anyMethod = new HashMap<>();
+  private final Requirement otherwise;
+
+  private AuthorizationRules(List<Declared> declared, Requirement otherwise) {
+    this.otherwise = otherwise;
+    for (HttpMethod method : HttpMethod.values()) {
+      table.put(method, compile(declared, method));
+    }
+    anyMethod.putAll(compile(declared, null));
+  }
+
+  private static Map<String, List<Rule>> compile(List<Declared> declared, HttpMethod method) {
+    Map<String, List<Rule>> routes = new HashMap<>();
+    for (Declared d : declared) {
+      if (d.method() == null || d.method().equals(method)) {
+        routes.computeIfAbsent(d.rule().segments()[0], k -> new ArrayList<>()).add(d.rule());
+      }
+    }
+    return routes;
+  }
+
+  /**
+   * @return a builder of the rules.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+    return new AuthorizationDecision(isAllowed(authentication, context.getRequest()));
+  }
+
+  /**
+   * Decide a request.
+   *
+   * @param authentication the caller
+   * @param request        the request
+   * @return whether the caller may make the request.
+   */
+  public boolean isAllowed(Supplier<Authentication> authentication, HttpServletRequest request) {
+    Requirement requirement = requirementOf(request);
+    if (requirement == Requirement.PERMIT_ALL) {
+      return true;
+    }
+    if (!isAuthenticated(authentication.get())) {
+      return false;
+    }
+    if (requirement.anyOfRoles().isEmpty()) {
+      return true;
+    }
+    Set<String> roles = rolesOf(request, authentication);
+    for (String role : requirement.anyOfRoles()) {
+      if (roles.contains(role)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Requirement requirementOf(HttpServletRequest request) {
+    String[] path = segments(URL_PATH_HELPER.getPathWithinApplication(request));
+    HttpMethod method = HttpMethod.valueOf(request.getMethod());
+    List<Rule> rules = table.getOrDefault(method, anyMethod).get(path.length == 0 ? "" : path[0]);
+    if (rules != null) {
+      for (Rule rule : rules) {
+        if (rule.matches(path)) {
+          return rule.requirement();
+        }
+      }
+    }
+    return otherwise;
+  }
+
+  /**
+   * The roles of the caller of a request, resolved once and then read from
+   * the request. Empty for anonymous callers.
+   *
+   * @param request        the request
+   * @param authentication the caller
+   * @return the role names, without the ROLE_ prefix.
+   */
+  @SuppressWarnings("unchecked")
+  public static Set<String> rolesOf(HttpServletRequest request, Supplier<Authentication> authentication) {
+    Set<String> roles = (Set<String>) request.getAttribute(ROLES_ATTRIBUTE);
+    if (roles == null) {
+      roles = rolesOf(authentication.get());
+      request.setAttribute(ROLES_ATTRIBUTE, roles);
+    }
+    return roles;
+  }
+
+  /**
+   * The roles of a caller.
+   *
+   * @param authentication the caller, may be null
+   * @return the role names, without the ROLE_ prefix; empty for anonymous callers.
+   */
+  public static Set<String> rolesOf(Authentication authentication) {
+    if (!isAuthenticated(authentication)) {
+      return Set.of();
+    }
+    Set<String> roles = new HashSet<>();
+    for (GrantedAuthority authority : authentication.getAuthorities()) {
+      String name = authority.getAuthority();
+      if (name != null && name.startsWith(ROLE_PREFIX)) {
+        roles.add(name.substring(ROLE_PREFIX.length()));
+      }
+    }
+    return Collections.unmodifiableSet(roles);
+  }
+
+  private static boolean isAuthenticated(Authentication authentication) {
+    return authentication != null && authentication.isAuthenticated() && !TRUST_RESOLVER.isAnonymous(authentication);
+  }
+
+  // A trailing slash is an empty last segment, as "/tours/" is not "/tours"
+  private static String[] segments(String path) {
+    String[] segments = path.startsWith("/") ? path.substring(1).split("/", -1) : path.split("/", -1);
+    return segments.length == 1 && segments[0].isEmpty() ? new String[0] : segments;
+  }
+
+  /**
+   * Builder of AuthorizationRules, in the order the rules are tried.
+   */
+  public static class Builder {
+    private final List<Declared> declared = new ArrayList<>();
+
+    /**
+     * Let anybody make these requests.
+     *
+     * @param method   the method, null for any
+     * @param patterns the paths
+     * @return this builder.
+     */
+    public Builder permitAll(HttpMethod method, String... patterns) {
+      return add(method, Requirement.PERMIT_ALL, patterns);
+    }
+
+    /**
+     * Let callers with one of the roles make these requests.
+     *
+     * @param method   the method, null for any
+     * @param roles    the roles, without the ROLE_ prefix
+     * @param patterns the paths
+     * @return this builder.
+     */
+    public Builder hasAnyRole(HttpMethod method, Set<String> roles, String... patterns) {
+      return add(method, new Requirement(true, Set.copyOf(roles)), patterns);
+    }
+
+    /**
+     * The rules are complete; any other request needs an authenticated caller.
+     *
+     * @return the compiled rules.
+     */
+    public AuthorizationRules anyOtherRequestAuthenticated() {
+      return new AuthorizationRules(declared, Requirement.AUTHENTICATED);
+    }
+
+    private Builder add(HttpMethod method, Requirement requirement, String... patterns) {
+      for (String pattern : patterns) {
+        String[] segments = segments(pattern);
+        boolean anyRest = segments.length > 0 && segments[segments.length - 1].equals(ANY_REST);
+        if (anyRest) {
+          segments = Arrays.copyOf(segments, segments.length - 1);
+        }
+        if (segments.length == 0 || segments[0].equals(ANY_SEGMENT)
+            || Arrays.asList(segments).contains(ANY_REST)) {
+          throw new IllegalArgumentException("Pattern must start with a literal segment"
+              + " and may only end with /**: " + pattern);
+        }
+        declared.add(new Declared(method, new Rule(segments, anyRest, requirement)));
+      }
+      return this;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.example.explorecalijpa.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Remembers the username and password pairs another provider verified, so
+ * HTTP Basic pays for BCrypt once per ttl instead of on every request.
+ *
+ * Entries are keyed on an HMAC-SHA256 of the pair under a key drawn at
+ * startup, so the cache holds no password and nothing that can be checked
+ * against a guess outside this process. Failed attempts are not cached and
+ * keep costing BCrypt. A changed password or disabled user is noticed when
+ * the entry expires. At most maxEntries pairs are kept; when full, expired
+ * entries are dropped and new pairs are not cached until there is room.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+  private record Verified(Object principal, Collection<? extends GrantedAuthority> authorities, long expiresAt) {
+  }
+
+  private final AuthenticationProvider delegate;
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final SecretKeySpec key;
+  private final Map<String, Verified> verified = new ConcurrentHashMap<>();
+
+  /**
+   * Construct CachingAuthenticationProvider
+   *
+   * @param delegate   provider verifying the pairs that are not cached
+   * @param ttl        how long a verified pair is trusted
+   * @param maxEntries maximum number of cached pairs
+   */
+  public CachingAuthenticationProvider(AuthenticationProvider delegate, Duration ttl, int maxEntries) {
+    this.delegate = delegate;
+    this.ttlNanos = ttl.toNanos();
+    this.maxEntries = maxEntries;
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    this.key = new SecretKeySpec(secret, "HmacSHA256");
+  }
+
+  @Override
+  public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+    if (!(authentication.getCredentials() instanceof String password)) {
+      return delegate.authenticate(authentication);
+    }
+    String cacheKey = cacheKey(authentication.getName(), password);
+    long now = System.nanoTime();
+    Verified hit = verified.get(cacheKey);
+    if (hit != null && now - hit.expiresAt() < 0) {
+      // Without the credentials, like the delegate returns them once they are erased
+      UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken
+          .authenticated(hit.principal(), null, hit.authorities());
+      result.setDetails(authentication.getDetails());
+      return result;
+    }
+
+    Authentication result = delegate.authenticate(authentication);
+    if (result != null && result.isAuthenticated()) {
+      if (verified.size() >= maxEntries) {
+        verified.values().removeIf(v -> now - v.expiresAt() >= 0);
+      }
+      if (verified.size() < maxEntries || verified.containsKey(cacheKey)) {
+        verified.put(cacheKey, new Verified(result.getPrincipal(), result.getAuthorities(), now + ttlNanos));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean supports(Class<?> authentication) {
+    return delegate.supports(authentication);
+  }
+
+  /**
+   * Forget every verified pair, e.g. after a password change.
+   */
+  public void clear() {
+    verified.clear();
+  }
+
+  private String cacheKey(String username, String password) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(key);
+      mac.update(username.getBytes(StandardCharsets.UTF_8));
+      mac.update((byte) 0);
+      return HexFormat.of().formatHex(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HmacSHA256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.example.explorecalijpa.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterLinkDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterLinkSave;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+
+import com.example.explorecalijpa.business.CollectionVersionService;
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.model.TourPackage;
+
+/**
+ * Increments the collection versions of /tours and /packages after Spring Data
+ * REST writes to one of their members.
+ */
+@Component
+@RepositoryEventHandler({ Tour.class, TourPackage.class })
+public class CollectionVersionEventHandler {
+
+  private static final Logger log = LoggerFactory.getLogger(CollectionVersionEventHandler.class);
+
+  private final CollectionVersionService collectionVersionService;
+
+  public CollectionVersionEventHandler(CollectionVersionService collectionVersionService) {
+    this.collectionVersionService = collectionVersionService;
+  }
+
+  @HandleAfterCreate
+  public void afterCreate(Tour tour) {
+    log.debug("afterCreate: tour {}", tour.getId());
+    collectionVersionService.increment(CollectionVersionService.TOURS);
+  }
+
+  @HandleAfterSave
+  public void afterSave(Tour tour) {
+    log.debug("afterSave: tour {}", tour.getId());
+    collectionVersionService.increment(CollectionVersionService.TOURS);
+  }
+
+  @HandleAfterLinkSave
+  public void afterLinkSave(Tour tour, Object linked) {
+    log.debug("afterLinkSave: tour {}", tour.getId());
+    collectionVersionService.increment(CollectionVersionService.TOURS);
+  }
+
+  @HandleAfterLinkDelete
+  public void afterLinkDelete(Tour tour, Object linked) {
+    log.debug("afterLinkDelete: tour {}", tour.getId());
+    collectionVersionService.increment(CollectionVersionService.TOURS);
+  }
+
+  @HandleAfterDelete
+  public void afterDelete(Tour tour) {
+    log.debug("afterDelete: tour {}", tour.getId());
+    collectionVersionService.increment(CollectionVersionService.TOURS);
+    // the ratings of the tour are gone with it, and now answer 404
+    collectionVersionService.increment(CollectionVersionService.ratingsOf(tour.getId()));
+  }
+
+  @HandleAfterCreate
+  public void afterCreate(TourPackage tourPackage) {
+    log.debug("afterCreate: package {}", tourPackage.getCode());
+    collectionVersionService.increment(CollectionVersionService.PACKAGES);
+  }
+
+  @HandleAfterSave
+  public void afterSave(TourPackage tourPackage) {
+    log.debug("afterSave: package {}", tourPackage.getCode());
+    collectionVersionService.increment(CollectionVersionService.PACKAGES);
+  }
+
+  @HandleAfterDelete
+  public void afterDelete(TourPackage tourPackage) {
+    log.debug("afterDelete: package {}", tourPackage.getCode());
+    collectionVersionService.increment(CollectionVersionService.PACKAGES);
+  }
+}
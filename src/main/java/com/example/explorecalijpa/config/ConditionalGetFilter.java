@@ -0,0 +1,66 @@
+package com.example.explorecalijpa.config;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.explorecalijpa.business.CollectionVersionService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Conditional GET of the collection resources /tours, /packages and
+ * /tours/{tourId}/ratings. The ETag is the version of the collection, so an
+ * If-None-Match that still matches is answered 304 after reading one row,
+ * before any controller runs its queries. It is weak because
+ * ResponseCacheFilter serves each version plain or gzipped, which are not
+ * byte for byte the same. Item resources get theirs from Spring Data REST and
+ * the entity @Version columns.
+ *
+ * The version is read before the collection, so a concurrent write can only
+ * pair new data with the old ETag, which costs the client one more 200.
+ */
+@Component
+@Order(ConditionalGetFilter.ORDER)
+public class ConditionalGetFilter extends OncePerRequestFilter {
+  static final int ORDER = Ordered.LOWEST_PRECEDENCE - 20;
+
+  /** Request attribute holding the collection version the ETag was made of. */
+  static final String VERSION_ATTRIBUTE = ConditionalGetFilter.class.getName() + ".version";
+
+  private static final Pattern COLLECTIONS = Pattern.compile("/tours|/packages|/tours/\\d+/ratings");
+
+  private final CollectionVersionService collectionVersionService;
+
+  public ConditionalGetFilter(CollectionVersionService collectionVersionService) {
+    this.collectionVersionService = collectionVersionService;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String method = request.getMethod();
+    return !("GET".equals(method) || "HEAD".equals(method))
+        || !COLLECTIONS.matcher(request.getRequestURI()).matches();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    long version = collectionVersionService.lookup(request.getRequestURI());
+    request.setAttribute(VERSION_ATTRIBUTE, version);
+    String etag = "W/\"" + version + "\"";
+    // Sets the ETag header, and the 304 status when If-None-Match matches it
+    if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+      return;
+    }
+    filterChain.doFilter(request, response);
+  }
+}
@@ -0,0 +1,47 @@
+package com.example.explorecalijpa.config;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Asynchronous appender that never blocks the logging thread: when its
+ * bounded queue is full the event is dropped and counted. Nothing is dropped
+ * before the queue is full, whatever the level.
+ *
+ * The count misses an event only when the queue fills up between the check
+ * and the offer, so it is a lower bound under heavy contention.
+ */
+public class DroppingAsyncAppender extends AsyncAppender {
+  private final LongAdder dropped = new LongAdder();
+
+  public DroppingAsyncAppender() {
+    setNeverBlock(true);
+    setDiscardingThreshold(0);
+  }
+
+  /**
+   * @return the number of events dropped so far.
+   */
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+  @Override
+  protected void append(ILoggingEvent event) {
+    if (isStarted() && getRemainingCapacity() == 0) {
+      dropped.increment();
+      return;
+    }
+    super.append(event);
+  }
+
+  @Override
+  public void stop() {
+    super.stop();
+    if (getDropped() > 0) {
+      addWarn("Dropped " + getDropped() + " logging events because the queue of " + getQueueSize() + " was full");
+    }
+  }
+}
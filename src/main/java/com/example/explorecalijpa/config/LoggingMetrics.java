@@ -0,0 +1,57 @@
+package com.example.explorecalijpa.config;
+
+import java.util.Iterator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes the logging events the prod profile drops: logback.events.dropped
+ * for a full DroppingAsyncAppender queue and logback.events.sampled for the
+ * SamplingTurboFilter. Registered once the context is refreshed, after Spring
+ * Boot has applied logback-spring.xml.
+ */
+@Component
+public class LoggingMetrics {
+  private static final Logger log = LoggerFactory.getLogger(LoggingMetrics.class);
+
+  private final MeterRegistry meterRegistry;
+
+  public LoggingMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @EventListener(ContextRefreshedEvent.class)
+  public void register() {
+    if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+      return;
+    }
+    Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+    while (appenders.hasNext()) {
+      if (appenders.next() instanceof DroppingAsyncAppender appender) {
+        FunctionCounter.builder("logback.events.dropped", appender, DroppingAsyncAppender::getDropped)
+            .description("Logging events dropped because the async queue was full")
+            .tag("appender", appender.getName())
+            .register(meterRegistry);
+        log.info("Logging through {} with a queue of {} events", appender.getName(), appender.getQueueSize());
+      }
+    }
+    for (TurboFilter filter : context.getTurboFilterList()) {
+      if (filter instanceof SamplingTurboFilter sampling) {
+        FunctionCounter.builder("logback.events.sampled", sampling, SamplingTurboFilter::getSampledOut)
+            .description("INFO events left out by per-logger sampling")
+            .register(meterRegistry);
+      }
+    }
+  }
+}
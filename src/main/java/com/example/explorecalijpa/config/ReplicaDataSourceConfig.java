@@ -0,0 +1,59 @@
+package com.example.explorecalijpa.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Read replica support, on when explorecali.datasource.replica.url is set.
+ *
+ * The primary pool is configured by spring.datasource as usual, the replica
+ * pool by explorecali.datasource.replica, with the primary credentials by
+ * default. The application data source hands out connections lazily: a
+ * connection first used by a read-only transaction, e.g. a Spring Data
+ * repository read or a lookup run with TxType.SUPPORTS, comes from
+ * ReplicaRoutingDataSource, any other from the primary.
+ */
+@Configuration
+@ConditionalOnProperty("explorecali.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    primary.setPoolName("primary");
+    return primary;
+  }
+
+  @Bean
+  @ConfigurationProperties("explorecali.datasource.replica.hikari")
+  HikariDataSource replicaDataSource(@Value("${explorecali.datasource.replica.url}") String url,
+      @Value("${explorecali.datasource.replica.username:${spring.datasource.username:}}") String username,
+      @Value("${explorecali.datasource.replica.password:${spring.datasource.password:}}") String password) {
+    HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+        .url(url).username(username).password(password).build();
+    replica.setPoolName("replica");
+    return replica;
+  }
+
+  @Bean
+  @Primary
+  DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica) {
+    LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+    dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replica));
+    return dataSource;
+  }
+}
@@ -0,0 +1,105 @@
+package com.example.explorecalijpa.config;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+/**
+ * Measures how far the replica is behind the primary with a heartbeat: the
+ * primary stamps the replica_heartbeat row with its own clock, and the lag is
+ * the primary's clock now minus the stamp read back from the replica. It holds
+ * whatever the replication technology, is known to within one heartbeat
+ * interval, and since only the primary's clock is used, every instance can
+ * beat the same row whatever its own clock says. The replica is
+ * read from only while the lag is at most max-lag; when it is further behind
+ * or cannot be read, reads go to the primary until it catches up. The lag is
+ * published as explorecali.datasource.replica.lag.
+ */
+@Component
+@ConditionalOnProperty("explorecali.datasource.replica.url")
+public class ReplicaLagMonitor {
+  private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+  private static final long UNKNOWN = Long.MAX_VALUE;
+
+  private final JdbcTemplate primary;
+  private final JdbcTemplate replica;
+  private final long maxLagMillis;
+  private volatile long lagMillis = UNKNOWN;
+  private volatile boolean replicaUsable;
+
+  /**
+   * Construct ReplicaLagMonitor
+   *
+   * @param primary       pool of the primary
+   * @param replica       pool of the replica
+   * @param meterRegistry registry of the lag gauge
+   * @param maxLag        largest lag the replica is read from with
+   */
+  public ReplicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica, MeterRegistry meterRegistry,
+      @Value("${explorecali.datasource.replica.max-lag:2s}") Duration maxLag) {
+    this.primary = new JdbcTemplate(primary);
+    this.replica = new JdbcTemplate(replica);
+    this.maxLagMillis = maxLag.toMillis();
+    TimeGauge.builder("explorecali.datasource.replica.lag", this, TimeUnit.MILLISECONDS,
+        m -> m.lagMillis == UNKNOWN ? Double.NaN : m.lagMillis)
+        .description("How far the replica is behind the primary, NaN when it cannot be read")
+        .register(meterRegistry);
+  }
+
+  /**
+   * @return whether the replica is close enough behind the primary to read
+   *         from.
+   */
+  public boolean isReplicaUsable() {
+    return replicaUsable;
+  }
+
+  /**
+   * Write a heartbeat to the primary and measure the lag of the replica.
+   */
+  @Scheduled(fixedDelayString = "${explorecali.datasource.replica.heartbeat-interval:PT1S}")
+  public void refresh() {
+    try {
+      primary.update("UPDATE replica_heartbeat SET beat_at = LOCALTIMESTAMP(3) WHERE id = 1");
+    } catch (DataAccessException e) {
+      log.warn("Unable to write the replica heartbeat: {}", e.getMessage());
+    }
+    long lag;
+    try {
+      Timestamp beat = replica.queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Timestamp.class);
+      Timestamp now = primary.queryForObject("SELECT LOCALTIMESTAMP(3)", Timestamp.class);
+      lag = beat == null || now == null ? UNKNOWN : Math.max(0, now.getTime() - beat.getTime());
+    } catch (DataAccessException e) {
+      log.debug("Unable to read the replica heartbeat: {}", e.getMessage());
+      lag = UNKNOWN;
+    }
+    lagMillis = lag;
+    boolean usable = lag <= maxLagMillis;
+    if (usable != replicaUsable) {
+      if (usable) {
+        log.info("Replica is {} ms behind, reading from it", lag);
+      } else if (lag == UNKNOWN) {
+        log.warn("Replica heartbeat cannot be read, reading from the primary");
+      } else {
+        log.warn("Replica is {} ms behind, reading from the primary", lag);
+      }
+      replicaUsable = usable;
+    }
+  }
+}
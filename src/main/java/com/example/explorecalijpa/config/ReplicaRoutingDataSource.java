@@ -0,0 +1,56 @@
+package com.example.explorecalijpa.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Data source of the read-only transactions: the replica when
+ * ReplicaRoutingFilter let the current request read from it, the primary
+ * otherwise. The choice is made once per request, so a request never mixes
+ * what it read from the replica with what it read from the primary. Work
+ * outside a request, e.g. the rating ingestion drainer or scheduled jobs,
+ * always reads from the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+  private static final ThreadLocal<Boolean> READ_FROM_REPLICA = new ThreadLocal<>();
+
+  private enum Target {
+    PRIMARY, REPLICA
+  }
+
+  /**
+   * Construct ReplicaRoutingDataSource
+   *
+   * @param primary pool of the primary
+   * @param replica pool of the replica
+   */
+  public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+    setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  /**
+   * @return whether the read-only transactions of the current thread read
+   *         from the replica.
+   */
+  public static boolean isReadingFromReplica() {
+    return Boolean.TRUE.equals(READ_FROM_REPLICA.get());
+  }
+
+  static void readFromReplica(boolean fromReplica) {
+    READ_FROM_REPLICA.set(fromReplica);
+  }
+
+  static void reset() {
+    READ_FROM_REPLICA.remove();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return isReadingFromReplica() ? Target.REPLICA : Target.PRIMARY;
+  }
+}
@@ -0,0 +1,73 @@
+package com.example.explorecalijpa.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Decides, once per request, whether its read-only transactions read from
+ * the replica. Only GET, HEAD and OPTIONS requests do, while the replica is
+ * within its max-lag, and not for a client that made any other request in the
+ * last sticky-window: a client reads its own writes from the primary until the
+ * replica has had time to catch up.
+ *
+ * The client carries that state itself, so it holds whichever instance serves
+ * the next request: every other request sets the STICKY_COOKIE cookie, which
+ * expires after sticky-window, and a request that sends it back reads from the
+ * primary. A client that does not keep cookies reads from the replica right
+ * after its writes.
+ *
+ * Runs before ConditionalGetFilter, whose collection version must come from
+ * the same database as the collection.
+ */
+@Component
+@Order(ConditionalGetFilter.ORDER - 10)
+@ConditionalOnProperty("explorecali.datasource.replica.url")
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+  /** Cookie of the clients that wrote in the last sticky-window. */
+  public static final String STICKY_COOKIE = "explorecali-primary";
+
+  private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+  private final ReplicaLagMonitor lagMonitor;
+  // Max-Age counts whole seconds, so a partial second is rounded up
+  private final Duration stickyMaxAge;
+
+  public ReplicaRoutingFilter(ReplicaLagMonitor lagMonitor,
+      @Value("${explorecali.datasource.replica.sticky-window:5s}") Duration stickyWindow) {
+    this.lagMonitor = lagMonitor;
+    this.stickyMaxAge = Duration.ofSeconds((stickyWindow.toMillis() + 999) / 1000);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    boolean read = READ_METHODS.contains(request.getMethod());
+    boolean sticky = WebUtils.getCookie(request, STICKY_COOKIE) != null;
+    if (!read) {
+      // Set before the handler runs, which may commit the response
+      response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(STICKY_COOKIE, "1")
+          .path("/").maxAge(stickyMaxAge).httpOnly(true).sameSite("Lax").build().toString());
+    }
+    ReplicaRoutingDataSource.readFromReplica(read && !sticky && lagMonitor.isReplicaUsable());
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ReplicaRoutingDataSource.reset();
+    }
+  }
+}
@@ -13,6 +13,10 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Set;
 
 @Component
 @RepositoryEventHandler({ TourPackage.class, Tour.class, TourRating.class })
@@ -20,16 +24,18 @@ public class RepositorySecurityEventHandler {
 
   private static final Logger log = LoggerFactory.getLogger(RepositorySecurityEventHandler.class);
 
+  // Reuses the roles AuthorizationRules resolved for the request, if there is one
   private void requireAdmin() {
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     log.debug("Repository event auth: {}", auth);
-    if (auth == null || !auth.isAuthenticated()) {
+    Set<String> roles = RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+        ? AuthorizationRules.rolesOf(attributes.getRequest(), () -> auth)
+        : AuthorizationRules.rolesOf(auth);
+    if (roles.isEmpty()) {
       log.warn("Unauthenticated access to repository write attempted");
       throw new AccessDeniedException("Authentication required");
     }
-    boolean isAdmin = auth.getAuthorities().stream()
-        .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-    if (!isAdmin) {
+    if (!roles.contains("ADMIN")) {
       log.warn("User '{}' attempted repository write without ADMIN role", auth.getName());
       throw new AccessDeniedException("Admin role required");
     }
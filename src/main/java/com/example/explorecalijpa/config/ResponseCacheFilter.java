@@ -0,0 +1,158 @@
+package com.example.explorecalijpa.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.rest.core.event.AfterCreateEvent;
+import org.springframework.data.rest.core.event.AfterDeleteEvent;
+import org.springframework.data.rest.core.event.AfterLinkDeleteEvent;
+import org.springframework.data.rest.core.event.AfterLinkSaveEvent;
+import org.springframework.data.rest.core.event.AfterSaveEvent;
+import org.springframework.data.rest.core.event.RepositoryEvent;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.example.explorecalijpa.business.CollectionVersionService;
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.model.TourPackage;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps the serialized bytes of the /tours and /packages responses, plain
+ * and gzipped, and writes them straight to the servlet output stream, so a
+ * hit loads no entity and generates no JSON.
+ *
+ * Every response is stored with the collection version ConditionalGetFilter
+ * read before the handler ran, and only served while that is still the
+ * version, which holds across instances and for writes that do not go
+ * through Spring Data REST. Spring Data REST writes also evict the collection
+ * right away. Responses differ by URL, as the HAL links are absolute, and by
+ * Accept; at most max-variants of them are kept per collection, and a full
+ * collection drops the responses of older versions to make room.
+ *
+ * Both encodings share the weak ETag of ConditionalGetFilter, and every
+ * response varies by Accept-Encoding, whether it is a hit or not.
+ */
+@Component
+@Order(ConditionalGetFilter.ORDER + 10)
+public class ResponseCacheFilter extends OncePerRequestFilter {
+  private static final Set<String> COLLECTIONS = Set.of(CollectionVersionService.TOURS,
+      CollectionVersionService.PACKAGES);
+  private static final int MIN_GZIP_SIZE = 256;
+
+  private record CachedResponse(long version, String contentType, byte[] body, byte[] gzipped) {
+  }
+
+  // collection -> request variant -> response
+  private final Map<String, Map<String, CachedResponse>> cache = new ConcurrentHashMap<>();
+  private final boolean enabled;
+  private final int maxVariants;
+
+  public ResponseCacheFilter(@Value("${explorecali.response-cache.enabled:true}") boolean enabled,
+      @Value("${explorecali.response-cache.max-variants:64}") int maxVariants) {
+    this.enabled = enabled;
+    this.maxVariants = maxVariants;
+  }
+
+  /**
+   * Evict a collection after Spring Data REST wrote to one of its members.
+   *
+   * @param event the write
+   */
+  @EventListener({ AfterCreateEvent.class, AfterSaveEvent.class, AfterDeleteEvent.class, AfterLinkSaveEvent.class,
+      AfterLinkDeleteEvent.class })
+  public void onRepositoryWrite(RepositoryEvent event) {
+    if (event.getSource() instanceof Tour) {
+      cache.remove(CollectionVersionService.TOURS);
+    } else if (event.getSource() instanceof TourPackage) {
+      cache.remove(CollectionVersionService.PACKAGES);
+    }
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled || !"GET".equals(request.getMethod()) || !COLLECTIONS.contains(request.getRequestURI())
+        || request.getAttribute(ConditionalGetFilter.VERSION_ATTRIBUTE) == null;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    long version = (Long) request.getAttribute(ConditionalGetFilter.VERSION_ATTRIBUTE);
+    Map<String, CachedResponse> responses = cache.computeIfAbsent(request.getRequestURI(),
+        k -> new ConcurrentHashMap<>());
+    String variant = variant(request);
+    CachedResponse cached = responses.get(variant);
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (cached != null && cached.version() == version) {
+      write(request, response, cached);
+      return;
+    }
+
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    filterChain.doFilter(request, wrapper);
+    if (wrapper.getStatus() == HttpStatus.OK.value() && wrapper.getContentType() != null
+        && hasRoom(responses, variant, version)) {
+      byte[] body = wrapper.getContentAsByteArray();
+      // A slower request that read an older version must not replace a newer response
+      responses.merge(variant, new CachedResponse(version, wrapper.getContentType(), body, gzip(body)),
+          (old, fresh) -> fresh.version() >= old.version() ? fresh : old);
+    }
+    wrapper.copyBodyToResponse();
+  }
+
+  // Versions only grow, so a response older than this request's is never served again
+  private boolean hasRoom(Map<String, CachedResponse> responses, String variant, long version) {
+    if (responses.size() >= maxVariants && !responses.containsKey(variant)) {
+      responses.values().removeIf(r -> r.version() < version);
+    }
+    return responses.size() < maxVariants || responses.containsKey(variant);
+  }
+
+  private static String variant(HttpServletRequest request) {
+    StringBuffer url = request.getRequestURL();
+    if (request.getQueryString() != null) {
+      url.append('?').append(request.getQueryString());
+    }
+    return url.append(' ').append(request.getHeader(HttpHeaders.ACCEPT)).toString();
+  }
+
+  private static void write(HttpServletRequest request, HttpServletResponse response, CachedResponse cached)
+      throws IOException {
+    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    boolean gzip = cached.gzipped() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+    byte[] body = gzip ? cached.gzipped() : cached.body();
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(cached.contentType());
+    if (gzip) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  private static byte[] gzip(byte[] body) throws IOException {
+    if (body.length < MIN_GZIP_SIZE) {
+      return null;
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(body);
+    }
+    return out.toByteArray();
+  }
+}
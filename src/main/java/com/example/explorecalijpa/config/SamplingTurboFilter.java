@@ -0,0 +1,98 @@
+package com.example.explorecalijpa.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Lets at most maxPerSecond INFO events a second through each logger under
+ * one of the configured prefixes, and drops the rest before any message is
+ * formatted. Other levels and other loggers are not sampled. Configured in
+ * logback-spring.xml:
+ *
+ * <pre>
+ * &lt;turboFilter class="com.example.explorecalijpa.config.SamplingTurboFilter"&gt;
+ *   &lt;loggerPrefix&gt;com.example.explorecalijpa.web&lt;/loggerPrefix&gt;
+ *   &lt;maxPerSecond&gt;10&lt;/maxPerSecond&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class SamplingTurboFilter extends TurboFilter {
+  // the window state packs the second in the high bits and the count of events in the low ones
+  private static final int COUNT_BITS = 20;
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+  private final List<String> loggerPrefixes = new ArrayList<>();
+  private final Map<String, AtomicLong> windows = new ConcurrentHashMap<>();
+  private final LongAdder sampledOut = new LongAdder();
+  private int maxPerSecond = 10;
+
+  public void addLoggerPrefix(String loggerPrefix) {
+    loggerPrefixes.add(loggerPrefix);
+  }
+
+  public void setMaxPerSecond(int maxPerSecond) {
+    this.maxPerSecond = maxPerSecond;
+  }
+
+  /**
+   * @return the number of events dropped so far.
+   */
+  public long getSampledOut() {
+    return sampledOut.sum();
+  }
+
+  @Override
+  public void start() {
+    if (maxPerSecond < 0 || maxPerSecond > COUNT_MASK) {
+      addError("maxPerSecond must be between 0 and " + COUNT_MASK);
+      return;
+    }
+    super.start();
+  }
+
+  @Override
+  public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+      Throwable t) {
+    // format is null when the caller only asks whether INFO is enabled
+    if (level != Level.INFO || format == null || !sampled(logger.getName())) {
+      return FilterReply.NEUTRAL;
+    }
+    AtomicLong window = windows.computeIfAbsent(logger.getName(), k -> new AtomicLong());
+    long second = System.currentTimeMillis() / 1000;
+    while (true) {
+      long state = window.get();
+      long next;
+      if (state >>> COUNT_BITS != second) {
+        next = second << COUNT_BITS | 1;
+      } else if ((state & COUNT_MASK) < maxPerSecond) {
+        next = state + 1;
+      } else {
+        sampledOut.increment();
+        return FilterReply.DENY;
+      }
+      if (window.compareAndSet(state, next)) {
+        return FilterReply.NEUTRAL;
+      }
+    }
+  }
+
+  private boolean sampled(String loggerName) {
+    for (String prefix : loggerPrefixes) {
+      if (loggerName.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -1,8 +1,13 @@
 package com.example.explorecalijpa.config;
 
+import java.time.Duration;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -19,6 +24,7 @@ import org.springframework.http.HttpMethod;
 @Configuration
 @EnableMethodSecurity // optional (handy for future method-level rules)
 public class SecurityConfig {
+  private static final Set<String> ADMIN = Set.of("ADMIN");
 
 
   @Bean
@@ -45,35 +51,56 @@ public class SecurityConfig {
   }
 
 
+  // HTTP Basic sends the password on every request; BCrypt it once per ttl, not every time
   @Bean
-  SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-    http
-      // Stateless REST: no CSRF tokens required for curl/Postman
-      .csrf(csrf -> csrf.disable())
+  AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService, PasswordEncoder encoder,
+      @Value("${explorecali.auth-cache.enabled:true}") boolean cacheEnabled,
+      @Value("${explorecali.auth-cache.ttl:5m}") Duration ttl,
+      @Value("${explorecali.auth-cache.max-entries:10000}") int maxEntries) {
+    DaoAuthenticationProvider dao = new DaoAuthenticationProvider(encoder);
+    dao.setUserDetailsService(userDetailsService);
+    return cacheEnabled ? new CachingAuthenticationProvider(dao, ttl, maxEntries) : dao;
+  }
+
 
+  // First matching rule wins
+  static AuthorizationRules authorizationRules() {
+    return AuthorizationRules.builder()
+        // Public docs/health
+        .permitAll(null, "/v3/api-docs/**", "/swagger-ui/**", "/actuator/health", "/actuator/info")
 
-      // Authorization rules
-      .authorizeHttpRequests(auth -> auth
-          // Public docs/health
-          .requestMatchers("/v3/api-docs/**", "/swagger-ui/**",
-                           "/actuator/health", "/actuator/info").permitAll()
+        // Read access for authenticated users
+        .hasAnyRole(HttpMethod.GET, Set.of("USER", "ADMIN"), "/tours/**", "/packages/**")
 
+        // Mutations require ADMIN
+        .hasAnyRole(HttpMethod.POST, ADMIN, "/tours/**", "/packages/**")
+        .hasAnyRole(HttpMethod.PUT, ADMIN, "/tours/**", "/packages/**")
+        .hasAnyRole(HttpMethod.PATCH, ADMIN, "/tours/**", "/packages/**")
+        .hasAnyRole(HttpMethod.DELETE, ADMIN, "/tours/**", "/packages/**")
 
-          // Read access for authenticated users
-          .requestMatchers(HttpMethod.GET, "/tours/**", "/packages/**")
-              .hasAnyRole("USER", "ADMIN")
+        // Metrics, such as the second-level cache hits, are for admins only
+        .hasAnyRole(null, ADMIN, "/actuator/**")
 
+        // Bulk export of every rating is for admins only
+        .hasAnyRole(HttpMethod.GET, ADMIN, "/ratings/export")
 
-          // Mutations require ADMIN
-          .requestMatchers(HttpMethod.POST, "/tours/**", "/packages/**").hasRole("ADMIN")
-          .requestMatchers(HttpMethod.PUT,  "/tours/**", "/packages/**").hasRole("ADMIN")
-          .requestMatchers(HttpMethod.PATCH,"/tours/**", "/packages/**").hasRole("ADMIN")
-          .requestMatchers(HttpMethod.DELETE,"/tours/**", "/packages/**").hasRole("ADMIN")
+        // Everything a customer rated is personal data, for support staff only
+        .hasAnyRole(HttpMethod.GET, ADMIN, "/customers/*/ratings")
+
+        // Anything else must be authenticated
+        .anyOtherRequestAuthenticated();
+  }
+
+
+  @Bean
+  SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    http
+      // Stateless REST: no CSRF tokens required for curl/Postman
+      .csrf(csrf -> csrf.disable())
 
 
-          // Anything else must be authenticated
-          .anyRequest().authenticated()
-      )
+      // Authorization rules, decided once per request, see authorizationRules()
+      .authorizeHttpRequests(auth -> auth.anyRequest().access(authorizationRules()))
 
 
       // HTTP Basic (no login form)
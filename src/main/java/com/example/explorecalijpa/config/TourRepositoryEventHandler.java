@@ -0,0 +1,76 @@
+package com.example.explorecalijpa.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterLinkDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterLinkSave;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+
+import com.example.explorecalijpa.business.TourFacetService;
+import com.example.explorecalijpa.business.TourLeaderboardService;
+import com.example.explorecalijpa.business.TourSearchService;
+import com.example.explorecalijpa.model.Tour;
+
+/**
+ * Keeps the in-memory views of the tours current after Spring Data REST writes
+ * to /tours.
+ */
+@Component
+@RepositoryEventHandler(Tour.class)
+public class TourRepositoryEventHandler {
+
+  private static final Logger log = LoggerFactory.getLogger(TourRepositoryEventHandler.class);
+
+  private final TourLeaderboardService leaderboardService;
+  private final TourSearchService searchService;
+  private final TourFacetService facetService;
+
+  public TourRepositoryEventHandler(TourLeaderboardService leaderboardService, TourSearchService searchService,
+      TourFacetService facetService) {
+    this.leaderboardService = leaderboardService;
+    this.searchService = searchService;
+    this.facetService = facetService;
+  }
+
+  @HandleAfterCreate
+  public void afterCreate(Tour tour) {
+    log.debug("afterCreate: tour {}", tour.getId());
+    leaderboardService.tourSaved(tour);
+    searchService.tourSaved(tour);
+    facetService.tourSaved(tour);
+  }
+
+  @HandleAfterSave
+  public void afterSave(Tour tour) {
+    log.debug("afterSave: tour {}", tour.getId());
+    leaderboardService.tourSaved(tour);
+    searchService.tourSaved(tour);
+    facetService.tourSaved(tour);
+  }
+
+  // Only the facets include the tour package, which the association resource
+  // /tours/{id}/tourPackage writes
+  @HandleAfterLinkSave
+  public void afterLinkSave(Tour tour, Object linked) {
+    log.debug("afterLinkSave: tour {}", tour.getId());
+    facetService.tourSaved(tour);
+  }
+
+  @HandleAfterLinkDelete
+  public void afterLinkDelete(Tour tour, Object linked) {
+    log.debug("afterLinkDelete: tour {}", tour.getId());
+    facetService.tourSaved(tour);
+  }
+
+  @HandleAfterDelete
+  public void afterDelete(Tour tour) {
+    log.debug("afterDelete: tour {}", tour.getId());
+    leaderboardService.tourDeleted(tour);
+    searchService.tourDeleted(tour);
+    facetService.tourDeleted(tour);
+  }
+}
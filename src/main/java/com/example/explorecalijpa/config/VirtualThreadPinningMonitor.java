@@ -0,0 +1,109 @@
+package com.example.explorecalijpa.config;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread,
+ * e.g. inside a synchronized block of the JDBC driver or the connection pool.
+ * A pinned virtual thread holds its carrier like a platform thread would, so
+ * enough of them starve every other virtual thread.
+ *
+ * Runs when spring.threads.virtual.enabled is true and streams the JFR
+ * jdk.VirtualThreadPinned events longer than the threshold in-process. Every
+ * pinning is timed in explorecali.virtual_threads.pinned and the stack of each
+ * new pinning site is logged once.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+  private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final int LOGGED_FRAMES = 12;
+
+  private final Duration threshold;
+  private final Timer pinned;
+  private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+
+  private RecordingStream stream;
+
+  /**
+   * Construct VirtualThreadPinningMonitor
+   *
+   * @param meterRegistry registry of the pinning timer
+   * @param threshold     shortest pinning reported
+   */
+  public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+      @Value("${explorecali.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+    this.threshold = threshold;
+    this.pinned = Timer.builder("explorecali.virtual_threads.pinned")
+        .description("Virtual threads that blocked while pinned to their carrier thread")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public synchronized void start() {
+    stream = new RecordingStream();
+    stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(PINNED_EVENT, this::onPinned);
+    stream.startAsync();
+    log.info("Reporting virtual threads pinned for more than {} ms", threshold.toMillis());
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (stream != null) {
+      stream.close();
+      stream = null;
+    }
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return stream != null;
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinned.record(event.getDuration());
+    if (event.getStackTrace() == null) {
+      return;
+    }
+    String site = site(event);
+    if (reportedSites.add(site)) {
+      log.warn("Virtual thread #{} pinned for {} ms at {}:\n\t{}", event.getThread().getJavaThreadId(),
+          event.getDuration().toMillis(), site, event.getStackTrace().getFrames().stream().limit(LOGGED_FRAMES)
+              .map(VirtualThreadPinningMonitor::frame).collect(Collectors.joining("\n\t")));
+    }
+  }
+
+  // The first frame outside the JDK, which is where the carrier got pinned
+  private static String site(RecordedEvent event) {
+    for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+      String type = frame.getMethod().getType().getName();
+      if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+        return frame(frame);
+      }
+    }
+    return "the JDK";
+  }
+
+  private static String frame(RecordedFrame frame) {
+    return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+  }
+}
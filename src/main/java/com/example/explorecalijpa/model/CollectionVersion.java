@@ -0,0 +1,38 @@
+package com.example.explorecalijpa.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Version of a whole collection resource, incremented by every write to one
+ * of its members, so a conditional GET of the collection is answered from a
+ * single row.
+ */
+@Entity
+@Table(name = "collection_version")
+@Data
+public class CollectionVersion {
+  @Id
+  @Column(name = "name")
+  private String name;
+
+  @Column(name = "version", nullable = false)
+  private Long version;
+
+  protected CollectionVersion() {
+  }
+
+  /**
+   * Create a fully initialized CollectionVersion.
+   *
+   * @param name    path of the collection resource.
+   * @param version current version.
+   */
+  public CollectionVersion(String name, Long version) {
+    this.name = name;
+    this.version = version;
+  }
+}
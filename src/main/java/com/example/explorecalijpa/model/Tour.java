@@ -4,15 +4,22 @@ import jakarta.persistence.*;
 
 import java.util.Objects;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 /**
  * The Tour contains all attributes of an Explore California Tour.
  *
  * Created by Mary Ellen Bowman
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Tour {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "tour_id")
+    @TableGenerator(name = "tour_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "tour", allocationSize = 50)
     private Integer id;
 
     @Column
@@ -48,6 +55,9 @@ public class Tour {
     @Column
     private Region region;
 
+    @Version
+    private Long version;
+
     public Tour(String title, String description, String blurb, Integer price, String duration, String bullets,
                 String keywords, TourPackage tourPackage, Difficulty difficulty, Region region) {
         this.title = title;
@@ -1,11 +1,16 @@
 package com.example.explorecalijpa.model;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import java.util.Objects;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 /**
  * A Classification of Tours.
  *
@@ -13,6 +18,8 @@ import java.util.Objects;
  */
 @Table(name="tour_package")
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class TourPackage {
     @Id
     private String code;
@@ -20,6 +27,9 @@ public class TourPackage {
     @Column
     private String name;
 
+    @Version
+    private Long version;
+
     protected TourPackage() {
     }
 
@@ -14,13 +14,20 @@ import lombok.Data;
 @Data
 public class TourRating {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = "tour_rating_id")
+  @TableGenerator(name = "tour_rating_id", table = "id_generator", pkColumnName = "sequence_name",
+      valueColumnName = "next_val", pkColumnValue = "tour_rating", allocationSize = 50)
   private Integer id;
 
   @ManyToOne
   @JoinColumn(name = "tour_id")
   private Tour tour;
 
+  // Read-only copy of the foreign key, so queries on the tour id use the
+  // tour_rating indexes instead of joining tour
+  @Column(name = "tour_id", insertable = false, updatable = false)
+  private Integer tourId;
+
   @Column(name = "customer_id")
   private Integer customerId;
 
@@ -30,6 +37,9 @@ public class TourRating {
   @Column
   private String comment;
 
+  @Version
+  private Long version;
+
   protected TourRating() {
   }
 
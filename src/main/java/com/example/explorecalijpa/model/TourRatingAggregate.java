@@ -0,0 +1,59 @@
+package com.example.explorecalijpa.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Running totals of all the Ratings of one Tour, maintained on every rating
+ * write so the average can be served from a single row.
+ */
+@Entity
+@Table(name = "tour_rating_aggregate")
+@Data
+public class TourRatingAggregate {
+  @Id
+  @Column(name = "tour_id")
+  private Integer tourId;
+
+  @Column(name = "rating_count", nullable = false)
+  private Long ratingCount;
+
+  @Column(name = "score_sum", nullable = false)
+  private Long scoreSum;
+
+  @Column(name = "min_score")
+  private Integer minScore;
+
+  @Column(name = "max_score")
+  private Integer maxScore;
+
+  protected TourRatingAggregate() {
+  }
+
+  /**
+   * Create a fully initialized TourRatingAggregate.
+   *
+   * @param tourId      the tour identifier.
+   * @param ratingCount number of ratings.
+   * @param scoreSum    sum of all scores.
+   * @param minScore    lowest score, null when there are no ratings.
+   * @param maxScore    highest score, null when there are no ratings.
+   */
+  public TourRatingAggregate(Integer tourId, Long ratingCount, Long scoreSum, Integer minScore, Integer maxScore) {
+    this.tourId = tourId;
+    this.ratingCount = ratingCount;
+    this.scoreSum = scoreSum;
+    this.minScore = minScore;
+    this.maxScore = maxScore;
+  }
+
+  /**
+   * @return the average score, or null if the tour has no ratings.
+   */
+  public Double getAverage() {
+    return ratingCount == null || ratingCount == 0 ? null : (double) scoreSum / ratingCount;
+  }
+}
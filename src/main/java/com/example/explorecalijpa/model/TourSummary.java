@@ -0,0 +1,22 @@
+package com.example.explorecalijpa.model;
+
+import org.springframework.data.rest.core.config.Projection;
+import org.springframework.hateoas.server.core.Relation;
+
+/**
+ * The columns of a Tour shown on list pages. Queries returning it select
+ * only these columns, leaving out the long description, blurb and bullets.
+ */
+@Projection(name = "summary", types = Tour.class)
+@Relation(collectionRelation = "tours")
+public interface TourSummary {
+    Integer getId();
+
+    String getTitle();
+
+    Integer getPrice();
+
+    Region getRegion();
+
+    Difficulty getDifficulty();
+}
@@ -0,0 +1,43 @@
+package com.example.explorecalijpa.repo;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.explorecalijpa.model.CollectionVersion;
+
+/**
+ * Collection Version Repository Interface
+ *
+ * The increments are applied in the database so concurrent writes never
+ * lose one.
+ */
+@Transactional(readOnly = true)
+@RepositoryRestResource(exported = false)
+public interface CollectionVersionRepository extends JpaRepository<CollectionVersion, String> {
+
+  /**
+   * Lookup the version of a collection.
+   *
+   * @param name path of the collection resource
+   * @return the version, empty if the collection was never written.
+   */
+  @Query("select c.version from CollectionVersion c where c.name = :name")
+  Optional<Long> findVersion(@Param("name") String name);
+
+  /**
+   * Increment the version of a collection.
+   *
+   * @param name path of the collection resource
+   * @return number of rows updated, 0 if the collection has no version yet.
+   */
+  @Modifying
+  @Transactional
+  @Query("update CollectionVersion c set c.version = c.version + 1 where c.name = :name")
+  int increment(@Param("name") String name);
+}
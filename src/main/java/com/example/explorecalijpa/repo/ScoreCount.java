@@ -0,0 +1,11 @@
+package com.example.explorecalijpa.repo;
+
+/**
+ * Number of Ratings of a tour with a given score.
+ *
+ * @param tourId tour identifier
+ * @param score  the score
+ * @param count  number of ratings of the tour with that score
+ */
+public record ScoreCount(Integer tourId, Integer score, Long count) {
+}
@@ -8,10 +8,12 @@ import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
 
 /*
  * Challenge: Change url keyword to "packages"
  */
+@Transactional(readOnly = true)
 @RepositoryRestResource(path = "packages", collectionResourceRel = "packages")
 @Tag(name = "Tour Package", description = "The Tour Package API")
 public interface TourPackageRepository extends JpaRepository<TourPackage, String> {
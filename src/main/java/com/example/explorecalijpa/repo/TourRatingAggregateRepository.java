@@ -0,0 +1,129 @@
+package com.example.explorecalijpa.repo;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.explorecalijpa.model.TourRatingAggregate;
+
+import jakarta.persistence.QueryHint;
+
+/**
+ * Tour Rating Aggregate Repository Interface
+ *
+ * The updates are applied in the database so concurrent rating writes never
+ * lose an increment.
+ */
+@Transactional(readOnly = true)
+@RepositoryRestResource(exported = false)
+public interface TourRatingAggregateRepository extends JpaRepository<TourRatingAggregate, Integer> {
+
+  /**
+   * Fold a number of ratings into the aggregate of a tour, creating the
+   * aggregate of its first ratings. One upsert statement, so concurrent first
+   * ratings of a tour cannot both try to insert it. The hint tells Hibernate
+   * only this table changed, so the second-level cache keeps everything else.
+   *
+   * @param tourId tour identifier
+   * @param count  number of ratings added
+   * @param sum    sum of the added scores
+   * @param min    lowest added score
+   * @param max    highest added score
+   */
+  @Modifying
+  @Transactional
+  @Query(nativeQuery = true, value = "insert into tour_rating_aggregate"
+      + " (tour_id, rating_count, score_sum, min_score, max_score) values (:tourId, :count, :sum, :min, :max)"
+      + " on duplicate key update rating_count = rating_count + :count, score_sum = score_sum + :sum,"
+      + " min_score = least(coalesce(min_score, :min), :min), max_score = greatest(coalesce(max_score, :max), :max)")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tour_rating_aggregate"))
+  void addScores(@Param("tourId") Integer tourId, @Param("count") long count, @Param("sum") long sum,
+      @Param("min") Integer min, @Param("max") Integer max);
+
+  /**
+   * Remove one rating from the aggregate of a tour.
+   *
+   * @param tourId tour identifier
+   * @param score  the removed score
+   * @return number of rows updated.
+   */
+  @Modifying
+  @Transactional
+  @Query("update TourRatingAggregate a set a.ratingCount = a.ratingCount - 1, a.scoreSum = a.scoreSum - :score"
+      + " where a.tourId = :tourId")
+  int removeScore(@Param("tourId") Integer tourId, @Param("score") long score);
+
+  /**
+   * Recompute min and max of a tour from its ratings, but only when the removed
+   * score was one of the bounds.
+   *
+   * @param tourId tour identifier
+   * @param score  the removed score
+   * @return number of rows updated.
+   */
+  @Modifying
+  @Transactional
+  @Query("update TourRatingAggregate a"
+      + " set a.minScore = (select min(r.score) from TourRating r where r.tour.id = :tourId),"
+      + " a.maxScore = (select max(r.score) from TourRating r where r.tour.id = :tourId)"
+      + " where a.tourId = :tourId and (a.minScore = :score or a.maxScore = :score)")
+  int refreshBounds(@Param("tourId") Integer tourId, @Param("score") Integer score);
+
+  /**
+   * Recompute the whole aggregate of a tour from its ratings in one statement,
+   * so rating writes committed meanwhile are counted rather than overwritten.
+   *
+   * @param tourId tour identifier
+   * @return number of rows updated, 0 if the tour has no aggregate.
+   */
+  @Modifying
+  @Transactional
+  @Query("update TourRatingAggregate a"
+      + " set a.ratingCount = (select count(r) from TourRating r where r.tour.id = :tourId),"
+      + " a.scoreSum = (select coalesce(sum(r.score), 0) from TourRating r where r.tour.id = :tourId),"
+      + " a.minScore = (select min(r.score) from TourRating r where r.tour.id = :tourId),"
+      + " a.maxScore = (select max(r.score) from TourRating r where r.tour.id = :tourId)"
+      + " where a.tourId = :tourId")
+  int recompute(@Param("tourId") Integer tourId);
+
+  /**
+   * Delete the aggregate of a tour, unless it has ratings.
+   *
+   * @param tourId tour identifier
+   * @return number of rows deleted.
+   */
+  @Modifying
+  @Transactional
+  @Query("delete from TourRatingAggregate a where a.tourId = :tourId and a.ratingCount = 0")
+  int deleteIfUnrated(@Param("tourId") Integer tourId);
+
+  /**
+   * Compute the aggregates of every tour from the tour_rating table.
+   *
+   * @return one aggregate per rated tour.
+   */
+  @Query("select new com.example.explorecalijpa.model.TourRatingAggregate(r.tour.id, count(r),"
+      + " coalesce(sum(r.score), 0), min(r.score), max(r.score))"
+      + " from TourRating r where r.tour is not null group by r.tour.id")
+  List<TourRatingAggregate> computeFromRatings();
+
+  /**
+   * Lookup the aggregates of several tours in one query. A tour without
+   * ratings gets an empty aggregate and a tour that does not exist none.
+   *
+   * @param tourIds tour identifiers
+   * @return one aggregate per existing tour.
+   */
+  @Query("select new com.example.explorecalijpa.model.TourRatingAggregate(t.id, coalesce(a.ratingCount, 0),"
+      + " coalesce(a.scoreSum, 0), a.minScore, a.maxScore)"
+      + " from Tour t left join TourRatingAggregate a on a.tourId = t.id where t.id in :tourIds")
+  List<TourRatingAggregate> findByTourIds(@Param("tourIds") Collection<Integer> tourIds);
+}
@@ -0,0 +1,19 @@
+package com.example.explorecalijpa.repo;
+
+import java.util.List;
+
+/**
+ * Bulk write operations on Tour Ratings, mixed into TourRatingRepository.
+ */
+public interface TourRatingBatchRepository {
+
+  /**
+   * Insert one rating per customer for a tour, all with the same score, using
+   * JDBC batches instead of one statement per row.
+   *
+   * @param tourId      is the tour Identifier
+   * @param score       score of every rating
+   * @param customerIds customers that have not rated the tour yet
+   */
+  void insertAll(Integer tourId, Integer score, List<Integer> customerIds);
+}
@@ -0,0 +1,49 @@
+package com.example.explorecalijpa.repo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.model.TourRating;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * JPA implementation of TourRatingBatchRepository. Pooled ids let Hibernate
+ * send the inserts as JDBC batches; the ratings of every batch are flushed and
+ * then detached so the persistence context does not grow with the number of
+ * customers, while the entities of the caller stay managed.
+ */
+public class TourRatingBatchRepositoryImpl implements TourRatingBatchRepository {
+  private EntityManager entityManager;
+  private int batchSize;
+
+  public TourRatingBatchRepositoryImpl(EntityManager entityManager,
+      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+    this.entityManager = entityManager;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void insertAll(Integer tourId, Integer score, List<Integer> customerIds) {
+    Tour tour = entityManager.getReference(Tour.class, tourId);
+    List<TourRating> pending = new ArrayList<>(batchSize);
+    for (Integer customerId : customerIds) {
+      TourRating rating = new TourRating(tour, customerId, score);
+      entityManager.persist(rating);
+      pending.add(rating);
+      if (pending.size() == batchSize) {
+        detach(pending);
+      }
+    }
+    detach(pending);
+  }
+
+  private void detach(List<TourRating> ratings) {
+    entityManager.flush();
+    ratings.forEach(entityManager::detach);
+    ratings.clear();
+  }
+}
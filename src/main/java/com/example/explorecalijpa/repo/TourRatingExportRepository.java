@@ -0,0 +1,21 @@
+package com.example.explorecalijpa.repo;
+
+import java.util.function.Consumer;
+
+/**
+ * Streaming reads of Tour Ratings, mixed into TourRatingRepository.
+ */
+public interface TourRatingExportRepository {
+
+  /**
+   * Stream the tour_rating rows through a forward-only cursor, one row at a
+   * time, so memory use does not depend on the size of the table. Every filter
+   * is optional.
+   *
+   * @param tourIdFrom lowest tour id, inclusive
+   * @param tourIdTo   highest tour id, exclusive
+   * @param customerId only the ratings of this customer
+   * @param sink       receives every row in id order
+   */
+  void streamAll(Integer tourIdFrom, Integer tourIdTo, Integer customerId, Consumer<TourRatingRow> sink);
+}
@@ -0,0 +1,56 @@
+package com.example.explorecalijpa.repo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JDBC implementation of TourRatingExportRepository.
+ */
+public class TourRatingExportRepositoryImpl implements TourRatingExportRepository {
+  private JdbcTemplate jdbcTemplate;
+  private int fetchSize;
+
+  public TourRatingExportRepositoryImpl(JdbcTemplate jdbcTemplate,
+      @Value("${explorecali.ratings.export.fetch-size:1000}") int fetchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.fetchSize = fetchSize;
+  }
+
+  @Override
+  public void streamAll(Integer tourIdFrom, Integer tourIdTo, Integer customerId, Consumer<TourRatingRow> sink) {
+    StringBuilder sql = new StringBuilder("select id, tour_id, customer_id, score, comment from tour_rating where 1 = 1");
+    List<Object> args = new ArrayList<>();
+    if (tourIdFrom != null) {
+      sql.append(" and tour_id >= ?");
+      args.add(tourIdFrom);
+    }
+    if (tourIdTo != null) {
+      sql.append(" and tour_id < ?");
+      args.add(tourIdTo);
+    }
+    if (customerId != null) {
+      sql.append(" and customer_id = ?");
+      args.add(customerId);
+    }
+    sql.append(" order by id");
+
+    jdbcTemplate.query(con -> {
+      PreparedStatement ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY);
+      ps.setFetchSize(fetchSize);
+      for (int i = 0; i < args.size(); i++) {
+        ps.setObject(i + 1, args.get(i));
+      }
+      return ps;
+    }, rs -> {
+      sink.accept(new TourRatingRow(rs.getObject("id", Integer.class), rs.getObject("tour_id", Integer.class),
+          rs.getObject("customer_id", Integer.class), rs.getObject("score", Integer.class), rs.getString("comment")));
+    });
+  }
+}
@@ -1,11 +1,16 @@
 package com.example.explorecalijpa.repo;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.explorecalijpa.model.TourRating;
 
@@ -14,8 +19,10 @@ import com.example.explorecalijpa.model.TourRating;
  *
  * Created by Mary Ellen Bowman
  */
+@Transactional(readOnly = true)
 @RepositoryRestResource(exported = false)
-public interface TourRatingRepository extends JpaRepository<TourRating, Integer>, CrudRepository<TourRating, Integer> {
+public interface TourRatingRepository extends JpaRepository<TourRating, Integer>, CrudRepository<TourRating, Integer>,
+    TourRatingBatchRepository, TourRatingExportRepository {
 
   /**
    * Lookup all the TourRatings for a tour.
@@ -25,6 +32,30 @@ public interface TourRatingRepository extends JpaRepository<TourRating, Integer>
    */
   List<TourRating> findByTourId(Integer tourId);
 
+  /**
+   * Lookup the ratings of a tour as rows.
+   *
+   * @param tourId is the tour Identifier
+   * @return the rows, without loading any TourRating or Tour entity
+   */
+  @Query("select new com.example.explorecalijpa.repo.TourRatingRow(r.id, r.tourId, r.customerId, r.score, r.comment)"
+      + " from TourRating r where r.tourId = :tourId")
+  List<TourRatingRow> findRowsByTourId(@Param("tourId") Integer tourId);
+
+  /**
+   * Lookup the ratings of a tour as rows, ordered by id, seeking past the
+   * last id of the previous page so the cost is the same for every page.
+   *
+   * @param tourId  is the tour Identifier
+   * @param afterId rating id of the last row of the previous page
+   * @param limit   maximum number of rows
+   * @return the rows, without loading any TourRating or Tour entity
+   */
+  @Query("select new com.example.explorecalijpa.repo.TourRatingRow(r.id, r.tourId, r.customerId, r.score, r.comment)"
+      + " from TourRating r where r.tourId = :tourId and r.id > :afterId order by r.id")
+  List<TourRatingRow> findRowsByTourId(@Param("tourId") Integer tourId, @Param("afterId") Integer afterId,
+      Limit limit);
+
   /**
    * Lookup a TourRating by the TourId and Customer Id
    * 
@@ -33,4 +64,39 @@ public interface TourRatingRepository extends JpaRepository<TourRating, Integer>
    * @return TourRating if found, null otherwise.
    */
   Optional<TourRating> findByTourIdAndCustomerId(Integer tourId, Integer customerId);
+
+  /**
+   * Lookup which of the given customers already rated a tour.
+   *
+   * @param tourId      is the tour Identifier
+   * @param customerIds customer identifiers to probe
+   * @return the customer ids that have a TourRating for the tour
+   */
+  @Query("select r.customerId from TourRating r where r.tour.id = :tourId and r.customerId in :customerIds")
+  List<Integer> findCustomerIdsByTourIdAndCustomerIdIn(@Param("tourId") Integer tourId,
+      @Param("customerIds") Collection<Integer> customerIds);
+
+  /**
+   * Lookup the ratings of a customer as rows, ordered by tour, seeking past
+   * the last tour of the previous page.
+   *
+   * @param customerId  customer identifier
+   * @param afterTourId tour identifier of the last row of the previous page
+   * @param limit       maximum number of rows
+   * @return the rows, without loading any TourRating or Tour entity
+   */
+  @Query("select new com.example.explorecalijpa.repo.TourRatingRow(r.id, r.tourId, r.customerId, r.score, r.comment)"
+      + " from TourRating r where r.customerId = :customerId and r.tourId > :afterTourId"
+      + " order by r.customerId, r.tourId")
+  List<TourRatingRow> findRowsByCustomerId(@Param("customerId") Integer customerId,
+      @Param("afterTourId") Integer afterTourId, Limit limit);
+
+  /**
+   * Count the TourRatings of every tour by score.
+   *
+   * @return one ScoreCount per tour and score
+   */
+  @Query("select new com.example.explorecalijpa.repo.ScoreCount(r.tour.id, r.score, count(r))"
+      + " from TourRating r where r.tour is not null group by r.tour.id, r.score")
+  List<ScoreCount> countByTourAndScore();
 }
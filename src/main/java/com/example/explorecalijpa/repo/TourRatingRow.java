@@ -0,0 +1,13 @@
+package com.example.explorecalijpa.repo;
+
+/**
+ * Plain row of the tour_rating table, read without building entities.
+ *
+ * @param id         rating identifier
+ * @param tourId     tour identifier
+ * @param customerId customer identifier
+ * @param score      score of the tour rating
+ * @param comment    additional comment
+ */
+public record TourRatingRow(Integer id, Integer tourId, Integer customerId, Integer score, String comment) {
+}
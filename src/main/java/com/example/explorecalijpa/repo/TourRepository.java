@@ -1,16 +1,67 @@
 package com.example.explorecalijpa.repo;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.explorecalijpa.model.Difficulty;
 import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.model.TourSummary;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+/**
+ * Tour Repository Interface
+ *
+ * Listings return TourSummary, which selects only the short columns; the
+ * item resource /tours/{id} keeps the full Tour. Spring Data REST cannot
+ * render projections returned by query methods, so they are not exported and
+ * TourCollectionController serves /tours and /tours/search/* instead.
+ */
+@Transactional(readOnly = true)
+@RepositoryRestResource(excerptProjection = TourSummary.class)
 @Tag(name = "Tours", description = "The Tour API")
 public interface TourRepository extends JpaRepository<Tour, Integer> {
-  List<Tour> findByDifficulty(Difficulty diff);
-  List<Tour> findByTourPackageCode(String code);
-}
\ No newline at end of file
+  @RestResource(exported = false)
+  List<TourSummary> findByDifficulty(Difficulty diff);
+
+  @RestResource(exported = false)
+  List<TourSummary> findByTourPackageCode(String code);
+
+  /**
+   * Lookup a page of the tours in a price range, read as a range scan of the
+   * price index, served as /tours/search/findByPriceBetween?min=&max=&page=&size=&sort=price.
+   *
+   * @param min      lowest price, inclusive
+   * @param max      highest price, inclusive
+   * @param pageable page and sort order
+   * @return a page of tour summaries
+   */
+  @RestResource(exported = false)
+  Page<TourSummary> findByPriceBetween(@Param("min") Integer min, @Param("max") Integer max, Pageable pageable);
+
+  /**
+   * Lookup a page of every tour, for the /tours collection resource.
+   *
+   * @param pageable page and sort order
+   * @return a page of tour summaries
+   */
+  @RestResource(exported = false)
+  Page<TourSummary> findAllProjectedBy(Pageable pageable);
+
+  /**
+   * Lookup the tours with the given ids in one IN query, for /tours?ids=.
+   *
+   * @param ids tour identifiers
+   * @return the summaries of the tours that exist, in no particular order
+   */
+  @RestResource(exported = false)
+  List<TourSummary> findByIdIn(Collection<Integer> ids);
+}
@@ -0,0 +1,30 @@
+package com.example.explorecalijpa.web;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import jakarta.validation.ConstraintViolationException;
+
+/**
+ * Opaque page cursors holding the keyset value of the last row of a page.
+ */
+final class Cursors {
+
+  private Cursors() {
+  }
+
+  static String encode(Integer key) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(key).getBytes(StandardCharsets.UTF_8));
+  }
+
+  static Integer decode(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return null;
+    }
+    try {
+      return Integer.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException e) {
+      throw new ConstraintViolationException("Invalid cursor " + cursor, null);
+    }
+  }
+}
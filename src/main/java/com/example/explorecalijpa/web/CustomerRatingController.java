@@ -0,0 +1,54 @@
+package com.example.explorecalijpa.web;
+
+import org.springframework.data.domain.Window;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.explorecalijpa.business.TourRatingService;
+import com.example.explorecalijpa.repo.TourRatingRow;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Customer Rating Controller for the ratings given by one customer.
+ */
+@RestController
+@Slf4j
+@Tag(name = "Customer Rating", description = "The Ratings by a Customer API")
+@RequestMapping(path = "/customers/{customerId}/ratings")
+public class CustomerRatingController {
+  private static final int DEFAULT_PAGE_SIZE = 100;
+  private static final int MAX_PAGE_SIZE = 1000;
+
+  private TourRatingService tourRatingService;
+
+  public CustomerRatingController(TourRatingService tourRatingService) {
+    this.tourRatingService = tourRatingService;
+  }
+
+  /**
+   * Lookup a page of the Ratings of a customer, ordered by tour.
+   *
+   * @param customerId customer identifier
+   * @param limit      maximum number of ratings in the page
+   * @param cursor     the next cursor of the previous page, absent for the first page
+   * @return the page of ratings and the cursor of the next one.
+   */
+  @GetMapping
+  @Operation(summary = "Lookup a Page of Ratings by a Customer")
+  public CustomerRatingPageDto getRatingsForCustomer(@PathVariable(value = "customerId") int customerId,
+      @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+      @RequestParam(value = "cursor", required = false) String cursor) {
+    log.info("GET /customers/{}/ratings?cursor={}", customerId, cursor);
+    Window<TourRatingRow> window = tourRatingService.lookupCustomerRatings(customerId, Cursors.decode(cursor),
+        Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    String next = window.hasNext() && !window.isEmpty()
+        ? Cursors.encode(window.getContent().get(window.size() - 1).tourId()) : null;
+    return new CustomerRatingPageDto(window.getContent(), next);
+  }
+}
@@ -0,0 +1,30 @@
+package com.example.explorecalijpa.web;
+
+import java.util.List;
+
+import com.example.explorecalijpa.repo.TourRatingRow;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object for a page of the Tour Ratings of a customer.
+ */
+@Data
+public class CustomerRatingPageDto {
+
+  private List<TourRatingRow> ratings;
+
+  /** Opaque cursor of the next page, null on the last page. */
+  private String next;
+
+  /**
+   * Constructor to fully initialize the CustomerRatingPageDto
+   *
+   * @param ratings ratings of this page
+   * @param next    cursor of the next page
+   */
+  public CustomerRatingPageDto(List<TourRatingRow> ratings, String next) {
+    this.ratings = ratings;
+    this.next = next;
+  }
+}
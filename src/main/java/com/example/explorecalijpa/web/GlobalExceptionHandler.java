@@ -1,7 +1,9 @@
 package com.example.explorecalijpa.web;
 
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
@@ -44,6 +46,37 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     return  createResponseEntity(pd, null, HttpStatus.BAD_REQUEST, request);
   }
   
+  /**
+   * Leverage Exception Handler framework for a full rating ingestion queue.
+   * 
+   * @param ex      RejectedExecutionException
+   * @param request WebRequest
+   * @return http response
+   */
+  @ExceptionHandler(RejectedExecutionException.class)
+  public final ResponseEntity<Object> handleRejectedExecutionException(
+      RejectedExecutionException ex, WebRequest request) {
+
+    ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+    return createResponseEntity(pd, null, HttpStatus.TOO_MANY_REQUESTS, request);
+  }
+
+  /**
+   * Leverage Exception Handler framework for writes rejected by a database
+   * constraint, such as a second rating of a tour by the same customer.
+   * 
+   * @param ex      DataIntegrityViolationException
+   * @param request WebRequest
+   * @return http response
+   */
+  @ExceptionHandler(DataIntegrityViolationException.class)
+  public final ResponseEntity<Object> handleDataIntegrityViolationException(
+      DataIntegrityViolationException ex, WebRequest request) {
+
+    ProblemDetail pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "Conflicts with existing data");
+    return createResponseEntity(pd, null, HttpStatus.CONFLICT, request);
+  }
+
   /**
    * Leverage Exception Handler frameworf for unexpected Exceptions.
    * 
@@ -0,0 +1,91 @@
+package com.example.explorecalijpa.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.explorecalijpa.business.TourRatingService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rating Controller for the ratings of all tours.
+ */
+@RestController
+@Slf4j
+@Tag(name = "Rating", description = "The Ratings across Tours API")
+@RequestMapping(path = "/ratings")
+public class RatingController {
+  private static final String NDJSON = "application/x-ndjson";
+
+  private TourRatingService tourRatingService;
+  private ObjectMapper objectMapper;
+
+  public RatingController(TourRatingService tourRatingService, ObjectMapper objectMapper) {
+    this.tourRatingService = tourRatingService;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Lookup the average scores of several tours in one request. Ids without a
+   * tour are reported instead of failing the request.
+   *
+   * @param tourIds the tour identifiers
+   * @return average score by tour id and the missing tour ids.
+   */
+  @GetMapping("/averages")
+  @Operation(summary = "Get the Average Scores of several Tours")
+  public TourAveragesDto getAverages(@RequestParam(value = "tourIds") List<Integer> tourIds) {
+    log.info("GET /ratings/averages?tourIds= {} ids", tourIds.size());
+    Map<Integer, Double> averages = tourRatingService.getAverageScores(tourIds);
+    return new TourAveragesDto(averages,
+        tourIds.stream().distinct().filter(id -> !averages.containsKey(id)).toList());
+  }
+
+  /**
+   * Export ratings as newline delimited JSON, written to the response while
+   * they are read. Tour id ranges let several exports run side by side.
+   *
+   * @param tourIdFrom lowest tour id, inclusive
+   * @param tourIdTo   highest tour id, exclusive
+   * @param customerId only the ratings of this customer
+   * @param response   the http response to stream to
+   * @throws IOException if the client goes away.
+   */
+  @GetMapping(path = "/export", produces = NDJSON)
+  @Operation(summary = "Export Ratings as NDJSON")
+  public void export(@RequestParam(value = "tourIdFrom", required = false) Integer tourIdFrom,
+      @RequestParam(value = "tourIdTo", required = false) Integer tourIdTo,
+      @RequestParam(value = "customerId", required = false) Integer customerId,
+      HttpServletResponse response) throws IOException {
+    log.info("GET /ratings/export?tourIdFrom={}&tourIdTo={}&customerId={}", tourIdFrom, tourIdTo, customerId);
+    response.setContentType(NDJSON);
+    OutputStream out = response.getOutputStream();
+    try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+      // NDJSON ends every record with a newline, the last one included
+      generator.setRootValueSeparator(null);
+      tourRatingService.exportRatings(tourIdFrom, tourIdTo, customerId, row -> {
+        try {
+          objectMapper.writeValue(generator, row);
+          generator.writeRaw('\n');
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
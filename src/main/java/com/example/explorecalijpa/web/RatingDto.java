@@ -1,6 +1,7 @@
 package com.example.explorecalijpa.web;
 
 import com.example.explorecalijpa.model.TourRating;
+import com.example.explorecalijpa.repo.TourRatingRow;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
@@ -43,4 +44,10 @@ public class RatingDto {
     this.comment = entity.getComment();
     this.customerId = entity.getCustomerId();
   }
+
+  public RatingDto(TourRatingRow row) {
+    this.score = row.score();
+    this.comment = row.comment();
+    this.customerId = row.customerId();
+  }
 }
@@ -0,0 +1,28 @@
+package com.example.explorecalijpa.web;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object for a page of Tour Ratings.
+ */
+@Data
+public class RatingPageDto {
+
+  private List<RatingDto> ratings;
+
+  /** Opaque cursor of the next page, null on the last page. */
+  private String next;
+
+  /**
+   * Constructor to fully initialize the RatingPageDto
+   *
+   * @param ratings ratings of this page
+   * @param next    cursor of the next page
+   */
+  public RatingPageDto(List<RatingDto> ratings, String next) {
+    this.ratings = ratings;
+    this.next = next;
+  }
+}
@@ -0,0 +1,30 @@
+package com.example.explorecalijpa.web;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object for the average scores of several tours.
+ */
+@Data
+public class TourAveragesDto {
+
+  /** Average score by tour id, null for a tour without ratings. */
+  private Map<Integer, Double> averages;
+
+  /** Requested tour ids without a tour. */
+  private List<Integer> missingTourIds;
+
+  /**
+   * Constructor to fully initialize the TourAveragesDto
+   *
+   * @param averages       average score by tour id
+   * @param missingTourIds requested tour ids without a tour
+   */
+  public TourAveragesDto(Map<Integer, Double> averages, List<Integer> missingTourIds) {
+    this.averages = averages;
+    this.missingTourIds = missingTourIds;
+  }
+}
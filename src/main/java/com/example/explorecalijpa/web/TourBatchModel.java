@@ -0,0 +1,30 @@
+package com.example.explorecalijpa.web;
+
+import java.util.List;
+
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.server.core.EmbeddedWrapper;
+
+/**
+ * The tour summaries of a /tours?ids= request, with the requested ids no tour
+ * was found for.
+ */
+public class TourBatchModel extends CollectionModel<EmbeddedWrapper> {
+
+  private final List<Integer> missingIds;
+
+  /**
+   * Construct TourBatchModel
+   *
+   * @param content    the embedded summaries
+   * @param missingIds requested ids without a tour
+   */
+  public TourBatchModel(List<EmbeddedWrapper> content, List<Integer> missingIds) {
+    super(content);
+    this.missingIds = missingIds;
+  }
+
+  public List<Integer> getMissingIds() {
+    return missingIds;
+  }
+}
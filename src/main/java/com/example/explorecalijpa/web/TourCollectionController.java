@@ -0,0 +1,164 @@
+package com.example.explorecalijpa.web;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.data.rest.webmvc.support.RepositoryEntityLinks;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.core.EmbeddedWrapper;
+import org.springframework.hateoas.server.core.EmbeddedWrappers;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.example.explorecalijpa.business.TourService;
+import com.example.explorecalijpa.model.Difficulty;
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.model.TourSummary;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tour Collection Controller, replacing the Spring Data REST tour listings
+ * so they select the summary columns only. /tours/{id} still returns the
+ * full Tour from Spring Data REST, and every summary links to it.
+ */
+@RepositoryRestController
+@Slf4j
+@Tag(name = "Tours", description = "The Tour API")
+public class TourCollectionController {
+  private static final LinkRelation TOURS = LinkRelation.of("tours");
+  private static final EmbeddedWrappers WRAPPERS = new EmbeddedWrappers(false);
+
+  private TourService tourService;
+  private PagedResourcesAssembler<TourSummary> pagedAssembler;
+  private RepositoryEntityLinks entityLinks;
+
+  public TourCollectionController(TourService tourService, PagedResourcesAssembler<TourSummary> pagedAssembler,
+      RepositoryEntityLinks entityLinks) {
+    this.tourService = tourService;
+    this.pagedAssembler = pagedAssembler;
+    this.entityLinks = entityLinks;
+  }
+
+  /**
+   * Lookup a page of tour summaries.
+   *
+   * @param pageable page, size and sort
+   * @return the page of summaries.
+   */
+  @GetMapping("/tours")
+  @Operation(summary = "Get a Page of Tour Summaries")
+  public ResponseEntity<PagedModel<EmbeddedWrapper>> getTours(Pageable pageable) {
+    log.info("GET /tours {}", pageable);
+    return ResponseEntity.ok(toModel(tourService.lookupSummaries(pageable)));
+  }
+
+  /**
+   * Lookup the summaries of several tours in one request. Ids without a tour
+   * are reported instead of failing the request.
+   *
+   * @param ids the tour identifiers
+   * @return the summaries in request order and the missing ids.
+   */
+  @GetMapping(path = "/tours", params = "ids")
+  @Operation(summary = "Get the Tour Summaries of several Tours")
+  public ResponseEntity<TourBatchModel> getToursById(@RequestParam(value = "ids") List<Integer> ids) {
+    log.info("GET /tours?ids= {} ids", ids.size());
+    List<TourSummary> summaries = tourService.lookupSummaries(ids);
+    Set<Integer> found = summaries.stream().map(TourSummary::getId).collect(Collectors.toSet());
+    List<Integer> missing = ids.stream().distinct().filter(id -> !found.contains(id)).toList();
+    return ResponseEntity.ok(new TourBatchModel(
+        List.of(WRAPPERS.wrap(summaries.stream().map(this::toModel).toList(), TOURS)), missing));
+  }
+
+  /**
+   * Lookup the summaries of the tours of a difficulty.
+   *
+   * @param diff the difficulty
+   * @return the summaries.
+   */
+  @GetMapping("/tours/search/findByDifficulty")
+  @Operation(summary = "Get the Tour Summaries of a Difficulty")
+  public ResponseEntity<CollectionModel<EmbeddedWrapper>> findByDifficulty(
+      @RequestParam(value = "diff") Difficulty diff) {
+    log.info("GET /tours/search/findByDifficulty?diff={}", diff);
+    return ResponseEntity.ok(toModel(tourService.lookupByDifficulty(diff)));
+  }
+
+  /**
+   * Lookup the summaries of the tours of a tour package.
+   *
+   * @param code the tour package code
+   * @return the summaries.
+   */
+  @GetMapping("/tours/search/findByTourPackageCode")
+  @Operation(summary = "Get the Tour Summaries of a Tour Package")
+  public ResponseEntity<CollectionModel<EmbeddedWrapper>> findByTourPackageCode(
+      @RequestParam(value = "code") String code) {
+    log.info("GET /tours/search/findByTourPackageCode?code={}", code);
+    return ResponseEntity.ok(toModel(tourService.lookupByPackage(code)));
+  }
+
+  /**
+   * Lookup a page of the summaries of the tours in a price range.
+   *
+   * @param min      lowest price, inclusive
+   * @param max      highest price, inclusive
+   * @param pageable page, size and sort
+   * @return the page of summaries.
+   */
+  @GetMapping("/tours/search/findByPriceBetween")
+  @Operation(summary = "Get a Page of the Tour Summaries in a Price Range")
+  public ResponseEntity<PagedModel<EmbeddedWrapper>> findByPriceBetween(
+      @RequestParam(value = "min") Integer min, @RequestParam(value = "max") Integer max, Pageable pageable) {
+    log.info("GET /tours/search/findByPriceBetween?min={}&max={} {}", min, max, pageable);
+    return ResponseEntity.ok(toModel(tourService.lookupByPrice(min, max, pageable)));
+  }
+
+  /**
+   * List the tour searches, as Spring Data REST does for the query methods it
+   * exports: theirs are served here, and the free-text search by TourController.
+   *
+   * @return a link template per search.
+   */
+  @GetMapping("/tours/search")
+  @Operation(summary = "Get the Tour Searches")
+  public ResponseEntity<RepresentationModel<?>> getSearches() {
+    String searches = entityLinks.linkToCollectionResource(Tour.class).expand().getHref() + "/search";
+    return ResponseEntity.ok(new RepresentationModel<>(List.of(
+        Link.of(searches + "/findByDifficulty{?diff}", "findByDifficulty"),
+        Link.of(searches + "/findByTourPackageCode{?code}", "findByTourPackageCode"),
+        Link.of(searches + "/findByPriceBetween{?min,max,page,size,sort}", "findByPriceBetween"),
+        Link.of(searches + "/text{?q,limit}", "text"),
+        Link.of(searches).withSelfRel())));
+  }
+
+  // The summaries are proxies HAL cannot name a relation for, so they are
+  // embedded under the same "tours" relation Spring Data REST uses
+  private PagedModel<EmbeddedWrapper> toModel(Page<TourSummary> page) {
+    PagedModel<EntityModel<TourSummary>> model = pagedAssembler.toModel(page, this::toModel);
+    return PagedModel.of(List.of(WRAPPERS.wrap(model.getContent(), TOURS)), model.getMetadata(), model.getLinks());
+  }
+
+  private CollectionModel<EmbeddedWrapper> toModel(List<TourSummary> summaries) {
+    return CollectionModel.of(List.of(WRAPPERS.wrap(summaries.stream().map(this::toModel).toList(), TOURS)));
+  }
+
+  private EntityModel<TourSummary> toModel(TourSummary summary) {
+    Link tour = entityLinks.linkToItemResource(Tour.class, summary.getId());
+    return EntityModel.of(summary, tour.expand().withSelfRel(), tour);
+  }
+}
@@ -0,0 +1,101 @@
+package com.example.explorecalijpa.web;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.explorecalijpa.business.TourFacetService;
+import com.example.explorecalijpa.business.TourFacetService.Filter;
+import com.example.explorecalijpa.business.TourFacetService.FilterResult;
+import com.example.explorecalijpa.business.TourLeaderboardService;
+import com.example.explorecalijpa.business.TourLeaderboardService.RankedTour;
+import com.example.explorecalijpa.business.TourSearchService;
+import com.example.explorecalijpa.business.TourSearchService.SearchHit;
+import com.example.explorecalijpa.model.Difficulty;
+import com.example.explorecalijpa.model.Region;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tour Controller for the tour queries Spring Data REST does not offer.
+ */
+@RestController
+@Slf4j
+@Tag(name = "Tours", description = "The Tour API")
+@RequestMapping(path = "/tours")
+public class TourController {
+  private static final int MAX_TOP = 100;
+  private static final int MAX_HITS = 100;
+
+  private TourLeaderboardService leaderboardService;
+  private TourSearchService searchService;
+  private TourFacetService facetService;
+
+  public TourController(TourLeaderboardService leaderboardService, TourSearchService searchService,
+      TourFacetService facetService) {
+    this.leaderboardService = leaderboardService;
+    this.searchService = searchService;
+    this.facetService = facetService;
+  }
+
+  /**
+   * Lookup the best rated tours, ranked by Bayesian average.
+   *
+   * @param n          maximum number of tours
+   * @param region     optional region filter
+   * @param difficulty optional difficulty filter
+   * @return the best tours first.
+   */
+  @GetMapping("/top")
+  @Operation(summary = "Get the Best Rated Tours")
+  public List<RankedTour> getTop(@RequestParam(value = "n", defaultValue = "10") int n,
+      @RequestParam(value = "region", required = false) Region region,
+      @RequestParam(value = "difficulty", required = false) Difficulty difficulty) {
+    log.info("GET /tours/top?n={}&region={}&difficulty={}", n, region, difficulty);
+    return leaderboardService.lookupTop(Math.max(1, Math.min(n, MAX_TOP)), region, difficulty);
+  }
+
+  /**
+   * Search the tours by free text, most relevant first. It sits among the
+   * /tours/search/findBy* queries, leaving /tours/search to Spring Data REST.
+   *
+   * @param q     the search terms
+   * @param limit maximum number of tours
+   * @return the matching tours.
+   */
+  @GetMapping("/search/text")
+  @Operation(summary = "Search the Tours")
+  public List<SearchHit> search(@RequestParam(value = "q") String q,
+      @RequestParam(value = "limit", defaultValue = "20") int limit) {
+    log.info("GET /tours/search/text?q={}", q);
+    return searchService.search(q, Math.max(1, Math.min(limit, MAX_HITS)));
+  }
+
+  /**
+   * Filter the tours on any combination of facets. Several values of one
+   * facet match any of them.
+   *
+   * @param regions      regions to keep
+   * @param difficulties difficulties to keep
+   * @param packageCodes tour package codes to keep
+   * @param minPrice     lowest price, inclusive
+   * @param maxPrice     highest price, inclusive
+   * @return the matching tours and the tour count of every facet value.
+   */
+  @GetMapping("/filter")
+  @Operation(summary = "Filter the Tours by Facets")
+  public FilterResult filter(@RequestParam(value = "region", required = false) List<Region> regions,
+      @RequestParam(value = "difficulty", required = false) List<Difficulty> difficulties,
+      @RequestParam(value = "package", required = false) List<String> packageCodes,
+      @RequestParam(value = "minPrice", required = false) Integer minPrice,
+      @RequestParam(value = "maxPrice", required = false) Integer maxPrice) {
+    log.info("GET /tours/filter?region={}&difficulty={}&package={}&minPrice={}&maxPrice={}", regions, difficulties,
+        packageCodes, minPrice, maxPrice);
+    return facetService.filter(new Filter(regions, difficulties, packageCodes, minPrice, maxPrice));
+  }
+}
@@ -1,10 +1,15 @@
 package com.example.explorecalijpa.web;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.OptionalInt;
 
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -17,8 +22,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.explorecalijpa.business.RatingIngestionService;
+import com.example.explorecalijpa.business.RatingResult;
+import com.example.explorecalijpa.business.ScoreHistogramService;
 import com.example.explorecalijpa.business.TourRatingService;
 import com.example.explorecalijpa.model.TourRating;
+import com.example.explorecalijpa.repo.TourRatingRow;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -35,35 +44,86 @@ import lombok.extern.slf4j.Slf4j;
 @Tag(name = "Tour Rating", description = "The Rating for a Tour API")
 @RequestMapping(path = "/tours/{tourId}/ratings")
 public class TourRatingController {
+  private static final int DEFAULT_PAGE_SIZE = 20;
+  private static final int MAX_PAGE_SIZE = 100;
+
   private TourRatingService tourRatingService;
+  private Optional<RatingIngestionService> ingestionService;
+  private ScoreHistogramService histogramService;
 
-  public TourRatingController(TourRatingService tourRatingService) {
+  public TourRatingController(TourRatingService tourRatingService,
+      Optional<RatingIngestionService> ingestionService, ScoreHistogramService histogramService) {
     this.tourRatingService = tourRatingService;
+    this.ingestionService = ingestionService;
+    this.histogramService = histogramService;
   }
 
   /**
-   * Create a Tour Rating.
+   * Create a Tour Rating. When rating ingestion is enabled the rating is only
+   * queued and the response is 202 with a tracking id.
    *
    * @param tourId
    * @param ratingDto
    */
   @PostMapping
-  @ResponseStatus(HttpStatus.CREATED)
   @Operation(summary = "Create a Tour Rating")
-  public RatingDto createTourRating(@PathVariable(value = "tourId") int tourId,
+  public ResponseEntity<?> createTourRating(@PathVariable(value = "tourId") int tourId,
       @RequestBody @Valid RatingDto ratingDto) {
     log.info("POST /tours/{}/ratings ", tourId);
+    if (ingestionService.isPresent()) {
+      String trackingId = ingestionService.get().submit(tourId, ratingDto.getCustomerId(),
+          ratingDto.getScore(), ratingDto.getComment());
+      return ResponseEntity.accepted().body(Map.of("trackingId", trackingId));
+    }
     TourRating rating = tourRatingService.createNew(tourId, ratingDto.getCustomerId(), 
         ratingDto.getScore(), ratingDto.getComment());
-    return new RatingDto(rating);
+    return ResponseEntity.status(HttpStatus.CREATED).body(new RatingDto(rating));
+  }
+
+  /**
+   * Lookup the status of a Tour Rating queued by rating ingestion.
+   *
+   * @param tourId
+   * @param trackingId
+   * @return the status of the submission.
+   */
+  @GetMapping("/ingest/{trackingId}")
+  @Operation(summary = "Lookup the Status of a Queued Tour Rating")
+  public Map<String, RatingIngestionService.Status> getIngestStatus(@PathVariable(value = "tourId") int tourId,
+      @PathVariable(value = "trackingId") String trackingId) {
+    log.info("GET /tours/{}/ratings/ingest/{}", tourId, trackingId);
+    return Map.of("status", ingestionService
+        .flatMap(service -> service.lookupStatus(trackingId))
+        .orElseThrow(() -> new NoSuchElementException("Unknown tracking id " + trackingId)));
   }
 
+  /**
+   * Lookup a page of Ratings for a Tour.
+   *
+   * @param tourId
+   * @param limit  maximum number of ratings in the page
+   * @param cursor the next cursor of the previous page, absent for the first page
+   * @return the page of ratings and the cursor of the next one.
+   */
   @GetMapping
+  @Operation(summary = "Lookup a Page of Ratings for a Tour")
+  public RatingPageDto getRatingsForTour(@PathVariable(value = "tourId") int tourId,
+      @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+      @RequestParam(value = "cursor", required = false) String cursor) {
+    log.info("GET /tours/{}/ratings?cursor={}", tourId, cursor);
+    Window<TourRatingRow> window = tourRatingService.lookupRatings(tourId, Cursors.decode(cursor),
+        Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    List<RatingDto> ratings = window.stream().map(RatingDto::new).toList();
+    String next = window.hasNext() && !window.isEmpty()
+        ? Cursors.encode(window.getContent().get(window.size() - 1).id()) : null;
+    return new RatingPageDto(ratings, next);
+  }
+
+  @GetMapping(params = "unpaged=true")
   @Operation(summary = "Lookup All Ratings for a Tour")
   public List<RatingDto> getAllRatingsForTour(@PathVariable(value = "tourId") int tourId) {
-    log.info("GET /tours/{}/ratings", tourId);
-    List<TourRating> tourRatings = tourRatingService.lookupRatings(tourId);
-    return tourRatings.stream().map(RatingDto::new).toList();
+    log.info("GET /tours/{}/ratings?unpaged=true", tourId);
+    return tourRatingService.lookupRatings(tourId).stream().map(RatingDto::new).toList();
   }
 
   /**
@@ -79,6 +139,44 @@ public class TourRatingController {
     return Map.of("average", tourRatingService.getAverageScore(tourId));
   }
 
+  /**
+   * Get the number of ratings of a Tour for every score, served from memory.
+   *
+   * @param tourId
+   * @return count by score.
+   */
+  @GetMapping("/histogram")
+  @Operation(summary = "Get the Score Histogram for a Tour")
+  public Map<String, Long> getHistogram(@PathVariable(value = "tourId") int tourId) {
+    log.info("GET /tours/{}/ratings/histogram", tourId);
+    long[] counts = histogramService.lookupHistogram(tourId);
+    Map<String, Long> histogram = new LinkedHashMap<>();
+    for (int score = 0; score < counts.length; score++) {
+      histogram.put(String.valueOf(score), counts[score]);
+    }
+    return histogram;
+  }
+
+  /**
+   * Get the median and 90th percentile score of a Tour, served from memory.
+   *
+   * @param tourId
+   * @return the percentiles, null when the tour has no ratings.
+   */
+  @GetMapping("/percentiles")
+  @Operation(summary = "Get the Score Percentiles for a Tour")
+  public Map<String, Integer> getPercentiles(@PathVariable(value = "tourId") int tourId) {
+    log.info("GET /tours/{}/ratings/percentiles", tourId);
+    Map<String, Integer> percentiles = new LinkedHashMap<>();
+    percentiles.put("median", toInteger(histogramService.lookupPercentile(tourId, 50)));
+    percentiles.put("p90", toInteger(histogramService.lookupPercentile(tourId, 90)));
+    return percentiles;
+  }
+
+  private static Integer toInteger(OptionalInt value) {
+    return value.isPresent() ? value.getAsInt() : null;
+  }
+
   /**
    * Update score and comment of a Tour Rating
    *
@@ -131,14 +229,15 @@ public class TourRatingController {
    * @param tourId
    * @param score
    * @param customers
+   * @return the outcome for every customer.
    */
   @PostMapping("/batch")
   @ResponseStatus(HttpStatus.CREATED)
   @Operation(summary = "Give Many Tours Same Score")
-  public void createManyTourRatings(@PathVariable(value = "tourId") int tourId,
+  public List<RatingResult> createManyTourRatings(@PathVariable(value = "tourId") int tourId,
                                     @RequestParam(value = "score") int score,
                                     @RequestBody List<Integer> customers) {
     log.info("POST /tours/{}/ratings/batch", tourId);
-    tourRatingService.rateMany(tourId, score, customers);
+    return tourRatingService.rateMany(tourId, score, customers);
   }
 }
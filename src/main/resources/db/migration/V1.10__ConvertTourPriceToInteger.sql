@@ -0,0 +1,6 @@
+ALTER TABLE tour ADD COLUMN price_numeric INT NOT NULL DEFAULT 0;
+UPDATE tour SET price_numeric = CAST(price AS DECIMAL(10, 0));
+ALTER TABLE tour DROP COLUMN price;
+ALTER TABLE tour RENAME COLUMN price_numeric TO price;
+ALTER TABLE tour ALTER COLUMN price DROP DEFAULT;
+CREATE INDEX idx_tour_price_id ON tour (price, id);
@@ -0,0 +1,9 @@
+ALTER TABLE tour ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE tour_package ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE tour_rating ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE collection_version (
+    name VARCHAR(255) PRIMARY KEY,
+    version BIGINT NOT NULL);
+
+INSERT INTO collection_version (name, version) VALUES ('/tours', 1), ('/packages', 1);
@@ -0,0 +1,5 @@
+CREATE TABLE replica_heartbeat (
+    id INTEGER PRIMARY KEY,
+    beat_at TIMESTAMP(3) NULL);
+
+INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, NULL);
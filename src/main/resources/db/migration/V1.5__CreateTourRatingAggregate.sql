@@ -0,0 +1,12 @@
+CREATE TABLE tour_rating_aggregate (
+    tour_id BIGINT PRIMARY KEY,
+    rating_count BIGINT NOT NULL,
+    score_sum BIGINT NOT NULL,
+    min_score INT,
+    max_score INT);
+
+insert into tour_rating_aggregate (tour_id, rating_count, score_sum, min_score, max_score)
+  select tour_id, COUNT(*), COALESCE(SUM(score), 0), MIN(score), MAX(score)
+  from tour_rating
+  where tour_id is not null
+  group by tour_id;
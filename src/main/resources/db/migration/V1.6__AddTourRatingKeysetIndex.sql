@@ -0,0 +1 @@
+CREATE INDEX idx_tour_rating_tour_id_id ON tour_rating (tour_id, id);
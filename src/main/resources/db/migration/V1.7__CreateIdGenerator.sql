@@ -0,0 +1,8 @@
+CREATE TABLE id_generator (
+    sequence_name VARCHAR(64) NOT NULL PRIMARY KEY,
+    next_val BIGINT NOT NULL);
+
+insert into id_generator (sequence_name, next_val)
+  select 'tour', COALESCE(MAX(id), 0) + 1 from tour;
+insert into id_generator (sequence_name, next_val)
+  select 'tour_rating', COALESCE(MAX(id), 0) + 1 from tour_rating;
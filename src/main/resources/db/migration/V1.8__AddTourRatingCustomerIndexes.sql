@@ -0,0 +1,2 @@
+CREATE UNIQUE INDEX uk_tour_rating_tour_id_customer_id ON tour_rating (tour_id, customer_id);
+CREATE INDEX idx_tour_rating_tour_id_score ON tour_rating (tour_id, score);
@@ -0,0 +1 @@
+CREATE INDEX idx_tour_rating_customer_id_tour_id ON tour_rating (customer_id, tour_id);
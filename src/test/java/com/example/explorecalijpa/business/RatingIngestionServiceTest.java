@@ -0,0 +1,123 @@
+package com.example.explorecalijpa.business;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class RatingIngestionServiceTest {
+
+  private static final int TOUR_ID = 1;
+  private static final int CAPACITY = 2;
+
+  @Mock
+  private TourRatingService tourRatingServiceMock;
+
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private RatingIngestionService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new RatingIngestionService(tourRatingServiceMock, meterRegistry, CAPACITY, 10, false);
+  }
+
+  @Test
+  void rejectWhenFull() throws InterruptedException {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(tourRatingServiceMock.createAll(anyList())).thenAnswer(invocation -> {
+      writing.countDown();
+      release.await();
+      return List.of();
+    });
+    service.start();
+
+    // the drainer holds the first rating while the next ones fill the queue
+    service.submit(TOUR_ID, 1, 5, "ok");
+    writing.await();
+    service.submit(TOUR_ID, 2, 5, "ok");
+    service.submit(TOUR_ID, 3, 5, "ok");
+
+    assertThrows(RejectedExecutionException.class, () -> service.submit(TOUR_ID, 4, 5, "ok"));
+    assertThat(meterRegistry.counter("ratings.ingest.rejected").count(), is(1.0));
+    release.countDown();
+    service.stop();
+  }
+
+  @Test
+  void rejectWhenStopped() {
+    service.start();
+    service.stop();
+
+    assertThrows(RejectedExecutionException.class, () -> service.submit(TOUR_ID, 1, 5, "ok"));
+  }
+
+  @Test
+  void drainOnShutdown() {
+    when(tourRatingServiceMock.createAll(anyList())).thenReturn(List.of());
+    service.start();
+    String first = service.submit(TOUR_ID, 1, 5, "ok");
+    String second = service.submit(TOUR_ID, 2, 4, "good");
+
+    // stop only returns once every queued rating is written
+    service.stop();
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<PendingRating>> batches = ArgumentCaptor.forClass(List.class);
+    verify(tourRatingServiceMock, atLeastOnce()).createAll(batches.capture());
+    assertThat(batches.getAllValues().stream().mapToInt(List::size).sum(), is(2));
+    assertThat(service.lookupStatus(first), is(Optional.of(RatingIngestionService.Status.WRITTEN)));
+    assertThat(service.lookupStatus(second), is(Optional.of(RatingIngestionService.Status.WRITTEN)));
+  }
+
+  @Test
+  void acceptedSubmissionsAreWrittenDespiteStop() throws InterruptedException {
+    service = new RatingIngestionService(tourRatingServiceMock, meterRegistry, 1000, 10, false);
+    when(tourRatingServiceMock.createAll(anyList())).thenReturn(List.of());
+    service.start();
+
+    // submit until stopped, racing every submission against stop
+    List<String> accepted = Collections.synchronizedList(new ArrayList<>());
+    Thread submitter = new Thread(() -> {
+      for (int customerId = 0; customerId < 5000; customerId++) {
+        try {
+          accepted.add(service.submit(TOUR_ID, customerId, 5, "ok"));
+        } catch (RejectedExecutionException e) {
+          if (!service.isRunning()) {
+            return;
+          }
+        }
+      }
+    });
+    submitter.start();
+    Thread.sleep(10);
+    service.stop();
+    submitter.join();
+
+    for (String trackingId : accepted) {
+      assertThat(service.lookupStatus(trackingId), is(Optional.of(RatingIngestionService.Status.WRITTEN)));
+    }
+  }
+}
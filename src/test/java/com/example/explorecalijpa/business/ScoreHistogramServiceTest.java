@@ -0,0 +1,61 @@
+package com.example.explorecalijpa.business;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.explorecalijpa.repo.ScoreCount;
+import com.example.explorecalijpa.repo.TourRatingRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class ScoreHistogramServiceTest {
+
+  private static final int TOUR_ID = 1;
+
+  @Mock
+  private TourRatingRepository tourRatingRepositoryMock;
+
+  @InjectMocks
+  private ScoreHistogramService service;
+
+  @BeforeEach
+  void setUp() {
+    when(tourRatingRepositoryMock.countByTourAndScore()).thenReturn(List.of(
+        new ScoreCount(TOUR_ID, 1, 2L), new ScoreCount(TOUR_ID, 5, 6L)));
+    service.rebuild();
+  }
+
+  @Test
+  void rebuild() {
+    assertThat(service.lookupHistogram(TOUR_ID), is(new long[] { 0, 2, 0, 0, 0, 6 }));
+    assertThat(service.lookupHistogram(TOUR_ID + 1), is(new long[6]));
+  }
+
+  @Test
+  void followChanges() {
+    service.onTourRatingChanged(new TourRatingChangedEvent(TOUR_ID, null, 3, 2));
+    service.onTourRatingChanged(new TourRatingChangedEvent(TOUR_ID, 5, 4, 1));
+    service.onTourRatingChanged(new TourRatingChangedEvent(TOUR_ID, 1, null, 1));
+
+    assertThat(service.lookupHistogram(TOUR_ID), is(new long[] { 0, 1, 0, 2, 1, 5 }));
+  }
+
+  @Test
+  void lookupPercentile() {
+    // scores 1 1 5 5 5 5 5 5
+    assertThat(service.lookupPercentile(TOUR_ID, 25), is(OptionalInt.of(1)));
+    assertThat(service.lookupPercentile(TOUR_ID, 50), is(OptionalInt.of(5)));
+    assertThat(service.lookupPercentile(TOUR_ID, 90), is(OptionalInt.of(5)));
+    assertThat(service.lookupPercentile(TOUR_ID + 1, 50), is(OptionalInt.empty()));
+  }
+}
@@ -0,0 +1,117 @@
+package com.example.explorecalijpa.business;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SingleFlightTest {
+  private static final int CALLERS = 8;
+
+  private SimpleMeterRegistry registry;
+  private SingleFlight singleFlight;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    singleFlight = new SingleFlight(registry);
+    executor = Executors.newFixedThreadPool(CALLERS);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void concurrentIdenticalCallsShareOneExecution() throws Exception {
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    List<Future<List<Integer>>> results = callConcurrently(release, () -> {
+      executions.incrementAndGet();
+      await(release);
+      return List.of(1, 2, 3);
+    });
+
+    for (Future<List<Integer>> result : results) {
+      assertThat(result.get(5, TimeUnit.SECONDS), is(List.of(1, 2, 3)));
+    }
+    assertThat(executions.get(), is(1));
+    assertThat(count("executed"), is(1.0));
+    assertThat(count("coalesced"), is(CALLERS - 1.0));
+  }
+
+  @Test
+  void waitersGetTheFailureOfTheExecution() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    List<Future<Object>> results = callConcurrently(release, () -> {
+      await(release);
+      throw new NoSuchElementException("Tour does not exist 1");
+    });
+
+    for (Future<Object> result : results) {
+      ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+      assertThat(e.getCause() instanceof NoSuchElementException, is(true));
+    }
+  }
+
+  @Test
+  void completedCallsAreNotReused() {
+    AtomicInteger executions = new AtomicInteger();
+    singleFlight.execute("average", executions::incrementAndGet, 1);
+    singleFlight.execute("average", executions::incrementAndGet, 1);
+    // different arguments and a null argument are separate calls
+    singleFlight.execute("average", executions::incrementAndGet, 2);
+    singleFlight.execute("average", executions::incrementAndGet, (Object) null);
+
+    assertThat(executions.get(), is(4));
+    assertThat(count("coalesced"), is(0.0));
+  }
+
+  // Starts the callers, waits until all but the executing one are waiting for
+  // its result, then lets the execution finish
+  private <T> List<Future<T>> callConcurrently(CountDownLatch release, Supplier<T> call)
+      throws InterruptedException {
+    List<Future<T>> results = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      results.add(executor.submit(() -> singleFlight.execute("ratings", call, 1, null, 10)));
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (count("executed") + count("coalesced") < CALLERS && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+    return results;
+  }
+
+  private double count(String outcome) {
+    var counter = registry.find("explorecali.single_flight.calls").tag("outcome", outcome).counter();
+    return counter == null ? 0 : counter.count();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
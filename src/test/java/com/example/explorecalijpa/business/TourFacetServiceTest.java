@@ -0,0 +1,95 @@
+package com.example.explorecalijpa.business;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.explorecalijpa.business.TourFacetService.FacetedTour;
+import com.example.explorecalijpa.business.TourFacetService.Filter;
+import com.example.explorecalijpa.business.TourFacetService.FilterResult;
+import com.example.explorecalijpa.model.Difficulty;
+import com.example.explorecalijpa.model.Region;
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.model.TourPackage;
+import com.example.explorecalijpa.repo.TourRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class TourFacetServiceTest {
+
+  @Mock
+  private TourRepository tourRepositoryMock;
+  @Mock
+  private Tour easyCoast;
+  @Mock
+  private Tour hardCoast;
+  @Mock
+  private Tour easyNorth;
+
+  private TourFacetService service;
+
+  @BeforeEach
+  void setUp() {
+    TourPackage backpackCal = new TourPackage("BC", "Backpack Cal");
+    when(easyCoast.getId()).thenReturn(1);
+    when(easyCoast.getRegion()).thenReturn(Region.Central_Coast);
+    when(easyCoast.getDifficulty()).thenReturn(Difficulty.Easy);
+    when(easyCoast.getTourPackage()).thenReturn(backpackCal);
+    when(easyCoast.getPrice()).thenReturn(100);
+    when(hardCoast.getId()).thenReturn(2);
+    when(hardCoast.getRegion()).thenReturn(Region.Central_Coast);
+    when(hardCoast.getDifficulty()).thenReturn(Difficulty.Difficult);
+    when(hardCoast.getTourPackage()).thenReturn(new TourPackage("CY", "California Calm"));
+    when(hardCoast.getPrice()).thenReturn(300);
+    when(easyNorth.getId()).thenReturn(3);
+    when(easyNorth.getRegion()).thenReturn(Region.Northern_California);
+    when(easyNorth.getDifficulty()).thenReturn(Difficulty.Easy);
+    when(easyNorth.getTourPackage()).thenReturn(backpackCal);
+    when(easyNorth.getPrice()).thenReturn(500);
+    when(tourRepositoryMock.findAll()).thenReturn(List.of(easyCoast, hardCoast, easyNorth));
+
+    service = new TourFacetService(tourRepositoryMock);
+    service.rebuild();
+  }
+
+  @Test
+  void filterAndCount() {
+    FilterResult result = service.filter(new Filter(List.of(Region.Central_Coast), List.of(Difficulty.Easy),
+        null, null, null));
+    assertThat(ids(result), is(List.of(1)));
+    // each facet is counted with the other facets applied
+    assertThat(result.regionCounts(), is(Map.of(Region.Central_Coast, 1, Region.Northern_California, 1)));
+    assertThat(result.difficultyCounts(), is(Map.of(Difficulty.Easy, 1, Difficulty.Difficult, 1)));
+    assertThat(result.packageCodeCounts(), is(Map.of("BC", 1, "CY", 0)));
+
+    // values of one facet are ORed
+    assertThat(ids(service.filter(new Filter(null, List.of(Difficulty.Easy, Difficulty.Difficult),
+        List.of("BC", "CY"), null, null))), is(List.of(1, 2, 3)));
+    assertThat(ids(service.filter(new Filter(null, null, null, 200, 500))), is(List.of(2, 3)));
+    assertThat(ids(service.filter(new Filter(null, null, null, null, 100))), is(List.of(1)));
+    assertThat(ids(service.filter(new Filter(List.of(Region.Varies), null, null, null, null))), is(List.of()));
+  }
+
+  @Test
+  void followTourWrites() {
+    service.tourDeleted(easyCoast);
+    when(hardCoast.getRegion()).thenReturn(Region.Northern_California);
+    service.tourSaved(hardCoast);
+
+    FilterResult result = service.filter(new Filter(List.of(Region.Northern_California), null, null, null, null));
+    assertThat(ids(result), is(List.of(2, 3)));
+    assertThat(result.regionCounts(), is(Map.of(Region.Northern_California, 2)));
+  }
+
+  private static List<Integer> ids(FilterResult result) {
+    return result.tours().stream().map(FacetedTour::tourId).toList();
+  }
+}
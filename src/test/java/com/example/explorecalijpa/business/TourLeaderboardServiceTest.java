@@ -0,0 +1,77 @@
+package com.example.explorecalijpa.business;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.explorecalijpa.business.TourLeaderboardService.RankedTour;
+import com.example.explorecalijpa.model.Difficulty;
+import com.example.explorecalijpa.model.Region;
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.model.TourRatingAggregate;
+import com.example.explorecalijpa.repo.TourRatingAggregateRepository;
+import com.example.explorecalijpa.repo.TourRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class TourLeaderboardServiceTest {
+
+  @Mock
+  private TourRepository tourRepositoryMock;
+  @Mock
+  private TourRatingAggregateRepository aggregateRepositoryMock;
+  @Mock
+  private Tour fewPerfect;
+  @Mock
+  private Tour manyGood;
+
+  private TourLeaderboardService service;
+
+  @BeforeEach
+  void setUp() {
+    when(fewPerfect.getId()).thenReturn(1);
+    when(fewPerfect.getRegion()).thenReturn(Region.Central_Coast);
+    when(fewPerfect.getDifficulty()).thenReturn(Difficulty.Easy);
+    when(manyGood.getId()).thenReturn(2);
+    when(manyGood.getRegion()).thenReturn(Region.Varies);
+    when(manyGood.getDifficulty()).thenReturn(Difficulty.Easy);
+    when(tourRepositoryMock.findAll()).thenReturn(List.of(fewPerfect, manyGood));
+    when(aggregateRepositoryMock.findAll()).thenReturn(List.of(
+        new TourRatingAggregate(1, 2L, 10L, 5, 5),
+        new TourRatingAggregate(2, 2000L, 9000L, 3, 5)));
+
+    // prior of 10 ratings of 3
+    service = new TourLeaderboardService(tourRepositoryMock, aggregateRepositoryMock, 3.0, 10);
+    service.rebuild();
+  }
+
+  @Test
+  void manyRatingsOutrankFewPerfectOnes() {
+    assertThat(ids(service.lookupTop(10, null, null)), is(List.of(2, 1)));
+    assertThat(ids(service.lookupTop(1, null, Difficulty.Easy)), is(List.of(2)));
+    assertThat(ids(service.lookupTop(10, Region.Central_Coast, null)), is(List.of(1)));
+    assertThat(ids(service.lookupTop(10, Region.Northern_California, null)), is(List.of()));
+  }
+
+  @Test
+  void followRatingChanges() {
+    // 100 more perfect scores push tour 1 to (30 + 510) / 112
+    service.onTourRatingChanged(new TourRatingChangedEvent(1, null, 5, 100));
+
+    List<RankedTour> top = service.lookupTop(10, null, null);
+    assertThat(ids(top), is(List.of(1, 2)));
+    assertThat(top.get(0).count(), is(102L));
+    assertThat(top.get(0).average(), is(5.0));
+  }
+
+  private static List<Integer> ids(List<RankedTour> tours) {
+    return tours.stream().map(RankedTour::tourId).toList();
+  }
+}
@@ -4,13 +4,13 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
@@ -19,13 +19,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 import com.example.explorecalijpa.model.Tour;
 import com.example.explorecalijpa.model.TourRating;
+import com.example.explorecalijpa.model.TourRatingAggregate;
 import com.example.explorecalijpa.repo.TourRatingRepository;
+import com.example.explorecalijpa.repo.TourRatingRow;
 import com.example.explorecalijpa.repo.TourRepository;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * Created by Mary Ellen Bowman
  */
@@ -40,6 +49,14 @@ public class TourRatingServiceTest {
   private TourRepository tourRepositoryMock;
   @Mock
   private TourRatingRepository tourRatingRepositoryMock;
+  @Mock
+  private TourRatingAggregateService aggregateServiceMock;
+  @Mock
+  private CollectionVersionService collectionVersionServiceMock;
+  @Spy
+  private SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry());
+  @Mock
+  private ApplicationEventPublisher eventPublisherMock;
 
   @InjectMocks 
   private TourRatingService service;
@@ -62,7 +79,7 @@ public class TourRatingServiceTest {
     when(tourMock.getId()).thenReturn(TOUR_ID);
     when(tourRatingRepositoryMock.findByTourIdAndCustomerId(TOUR_ID, CUSTOMER_ID))
         .thenReturn(Optional.of(tourRatingMock));
-    when(tourRatingRepositoryMock.findByTourId(TOUR_ID)).thenReturn(Arrays.asList(tourRatingMock));
+    when(tourRatingRepositoryMock.findRowsByTourId(TOUR_ID)).thenReturn(List.of());
   }
 
   /**************************************************************************************
@@ -89,25 +106,52 @@ public class TourRatingServiceTest {
   @Test
   public void getAverageScore() {
     when(tourRepositoryMock.findById(TOUR_ID)).thenReturn(Optional.of(tourMock));
-    when(tourMock.getId()).thenReturn(TOUR_ID);
-    when(tourRatingRepositoryMock.findByTourId(TOUR_ID)).thenReturn(Arrays.asList(tourRatingMock));
-    when(tourRatingMock.getScore()).thenReturn(10);
+    when(aggregateServiceMock.lookup(TOUR_ID))
+        .thenReturn(Optional.of(new TourRatingAggregate(TOUR_ID, 4L, 14L, 2, 5)));
 
     // invoke and verify getAverageScore
-    assertThat(service.getAverageScore(TOUR_ID), is(10.0));
+    assertThat(service.getAverageScore(TOUR_ID), is(3.5));
   }
 
   @Test
   public void lookupRatings() {
-    // create mocks of Pageable and Page (only needed in this test)
-    List list = mock(List.class);
+    List<TourRatingRow> rows = new ArrayList<>(List.of(new TourRatingRow(8, TOUR_ID, 2, 5, null)));
+    when(tourRepositoryMock.findById(TOUR_ID)).thenReturn(Optional.of(tourMock));
+    when(tourMock.getId()).thenReturn(TOUR_ID);
+
+    when(tourRatingRepositoryMock.findRowsByTourId(TOUR_ID)).thenReturn(rows);
+
+    // invoke and verify lookupRatings, whose result is shared so cannot be modified
+    List<TourRatingRow> ratings = service.lookupRatings(TOUR_ID);
+    assertThat(ratings, is(rows));
+    assertThrows(UnsupportedOperationException.class, ratings::clear);
+  }
+
+  @Test
+  public void lookupRatingsPage() {
+    List<TourRatingRow> rows = List.of(new TourRatingRow(8, TOUR_ID, 2, 5, null),
+        new TourRatingRow(9, TOUR_ID, 3, 4, null));
     when(tourRepositoryMock.findById(TOUR_ID)).thenReturn(Optional.of(tourMock));
     when(tourMock.getId()).thenReturn(TOUR_ID);
+    when(tourRatingRepositoryMock.findRowsByTourId(TOUR_ID, 7, Limit.of(6))).thenReturn(rows);
 
-    when(tourRatingRepositoryMock.findByTourId(TOUR_ID)).thenReturn(list);
+    // invoke and verify lookupRatings seeks past the last id
+    Window<TourRatingRow> window = service.lookupRatings(TOUR_ID, 7, 5);
+    assertThat(window.getContent(), is(rows));
+    assertThat(window.hasNext(), is(false));
+    assertThat(window.positionAt(1), is(ScrollPosition.forward(Map.of("id", 9))));
+  }
 
-    // invoke and verify lookupRatings
-    assertThat(service.lookupRatings(TOUR_ID), is(list));
+  @Test
+  public void lookupCustomerRatings() {
+    List<TourRatingRow> rows = List.of(new TourRatingRow(1, 2, CUSTOMER_ID, 5, null),
+        new TourRatingRow(2, 3, CUSTOMER_ID, 4, null), new TourRatingRow(3, 4, CUSTOMER_ID, 3, null));
+    when(tourRatingRepositoryMock.findRowsByCustomerId(CUSTOMER_ID, 1, Limit.of(3))).thenReturn(rows);
+
+    // invoke and verify the extra row only signals a next page
+    Window<TourRatingRow> window = service.lookupCustomerRatings(CUSTOMER_ID, 1, 2);
+    assertThat(window.getContent(), is(rows.subList(0, 2)));
+    assertThat(window.hasNext(), is(true));
   }
 
   /**************************************************************************************
@@ -126,21 +170,52 @@ public class TourRatingServiceTest {
 
     // verify tourRatingRepository.delete invoked
     verify(tourRatingRepositoryMock).delete(any(TourRating.class));
+    verify(aggregateServiceMock).recordRemoved(TOUR_ID, 0);
+    verify(collectionVersionServiceMock).increment("/tours/" + TOUR_ID + "/ratings");
   }
 
   @Test
   public void rateMany() {
     when(tourRepositoryMock.findById(TOUR_ID)).thenReturn(Optional.of(tourMock));
-    when(tourRatingRepositoryMock.findByTourIdAndCustomerId(TOUR_ID, CUSTOMER_ID))
-        .thenReturn(Optional.empty());
-    when(tourRatingRepositoryMock.findByTourIdAndCustomerId(TOUR_ID, CUSTOMER_ID + 1))
-        .thenReturn(Optional.empty());
+    when(tourRatingRepositoryMock.findCustomerIdsByTourIdAndCustomerIdIn(TOUR_ID,
+        List.of(CUSTOMER_ID, CUSTOMER_ID + 1, CUSTOMER_ID + 2))).thenReturn(List.of(CUSTOMER_ID + 2));
 
     // invoke rateMany
-    service.rateMany(TOUR_ID, 10, List.of(CUSTOMER_ID, CUSTOMER_ID + 1));
+    List<RatingResult> results = service.rateMany(TOUR_ID, 10,
+        List.of(CUSTOMER_ID, CUSTOMER_ID + 1, CUSTOMER_ID + 2, CUSTOMER_ID));
+
+    // verify only the new customers are inserted, in one batch
+    verify(tourRatingRepositoryMock).insertAll(TOUR_ID, 10, List.of(CUSTOMER_ID, CUSTOMER_ID + 1));
+    verify(aggregateServiceMock).recordAdded(TOUR_ID, 10, 2);
+
+    // verify the per customer report
+    assertThat(results, is(List.of(
+        new RatingResult(CUSTOMER_ID, RatingResult.Status.CREATED),
+        new RatingResult(CUSTOMER_ID + 1, RatingResult.Status.CREATED),
+        new RatingResult(CUSTOMER_ID + 2, RatingResult.Status.ALREADY_RATED),
+        new RatingResult(CUSTOMER_ID, RatingResult.Status.DUPLICATE_IN_BATCH))));
+  }
 
-    // verify tourRatingRepository.save invoked twice
-    verify(tourRatingRepositoryMock, times(2)).save(any(TourRating.class));
+  @Test
+  public void createAll() {
+    when(tourRepositoryMock.findAllById(List.of(TOUR_ID, TOUR_ID + 1))).thenReturn(List.of(tourMock));
+    when(tourMock.getId()).thenReturn(TOUR_ID);
+    when(tourRatingRepositoryMock.findCustomerIdsByTourIdAndCustomerIdIn(TOUR_ID,
+        List.of(CUSTOMER_ID, CUSTOMER_ID + 1, CUSTOMER_ID + 2))).thenReturn(List.of(CUSTOMER_ID + 2));
+    PendingRating known = new PendingRating("a", TOUR_ID, CUSTOMER_ID, 5, "ok");
+    PendingRating other = new PendingRating("b", TOUR_ID, CUSTOMER_ID + 1, 5, "ok");
+    PendingRating rated = new PendingRating("c", TOUR_ID, CUSTOMER_ID + 2, 5, "ok");
+    PendingRating unknown = new PendingRating("d", TOUR_ID + 1, CUSTOMER_ID, 5, "ok");
+    PendingRating retried = new PendingRating("e", TOUR_ID, CUSTOMER_ID, 4, "again");
+
+    // invoke and verify the unknown tour, the rated customer and the duplicate are skipped
+    assertThat(service.createAll(List.of(known, other, rated, unknown, retried)),
+        is(List.of(rated, unknown, retried)));
+
+    ArgumentCaptor<List<TourRating>> saved = ArgumentCaptor.forClass(List.class);
+    verify(tourRatingRepositoryMock).saveAll(saved.capture());
+    assertThat(saved.getValue().size(), is(2));
+    verify(aggregateServiceMock).recordAdded(TOUR_ID, 5, 2);
   }
 
   @Test
@@ -153,6 +228,7 @@ public class TourRatingServiceTest {
 
     // verify tourRatingRepository.save invoked once
     verify(tourRatingRepositoryMock).save(any(TourRating.class));
+    verify(aggregateServiceMock).recordChanged(TOUR_ID, 0, 5);
 
     // verify and tourRating setter methods invoked
     verify(tourRatingMock).setComment("great");
@@ -169,6 +245,7 @@ public class TourRatingServiceTest {
 
     // verify tourRatingRepository.save invoked once
     verify(tourRatingRepositoryMock).save(any(TourRating.class));
+    verify(collectionVersionServiceMock).increment("/tours/" + TOUR_ID + "/ratings");
 
     // verify and tourRating setter methods invoked
     verify(tourRatingMock).setComment("awful");
@@ -201,6 +278,7 @@ public class TourRatingServiceTest {
     assertThat(tourRatingCaptor.getValue().getCustomerId(), is(CUSTOMER_ID));
     assertThat(tourRatingCaptor.getValue().getScore(), is(2));
     assertThat(tourRatingCaptor.getValue().getComment(), is("ok"));
+    verify(aggregateServiceMock).recordAdded(TOUR_ID, 2, 1);
   }
 
   /**
@@ -0,0 +1,80 @@
+package com.example.explorecalijpa.business;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.explorecalijpa.business.TourSearchService.SearchHit;
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.repo.TourRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class TourSearchServiceTest {
+
+  @Mock
+  private TourRepository tourRepositoryMock;
+  @Mock
+  private Tour yosemite;
+  @Mock
+  private Tour coast;
+  @Mock
+  private Tour desert;
+
+  private TourSearchService service;
+
+  @BeforeEach
+  void setUp() {
+    stub(yosemite, 1, "Yosemite Valley Hiking", "Hike below Half Dome.", "hiking, Yosemite");
+    stub(coast, 2, "Coastal Drive", "A drive with a short hiking stop.", "driving");
+    stub(desert, 3, "Desert Springs", "Relax in the hot springs.", "spa");
+    when(tourRepositoryMock.findAll()).thenReturn(List.of(yosemite, coast, desert));
+
+    service = new TourSearchService(tourRepositoryMock);
+    service.rebuild();
+  }
+
+  @Test
+  void titleAndKeywordHitsRankFirst() {
+    assertThat(ids(service.search("Hiking", 10)), is(List.of(1, 2)));
+    assertThat(ids(service.search("yosemite", 10)), is(List.of(1)));
+    assertThat(ids(service.search("hot-springs", 10)), is(List.of(3)));
+    assertThat(ids(service.search("hiking", 1)), is(List.of(1)));
+    assertThat(ids(service.search("snowboard", 10)), is(List.of()));
+  }
+
+  @Test
+  void followTourWrites() {
+    stub(coast, 2, "Coastal Snowboard", "No more hiking.", null);
+    service.tourSaved(coast);
+    assertThat(ids(service.search("snowboard", 10)), is(List.of(2)));
+    assertThat(ids(service.search("driving", 10)), is(List.of()));
+
+    service.tourDeleted(yosemite);
+    assertThat(ids(service.search("hiking", 10)), is(List.of(2)));
+  }
+
+  @Test
+  void tokenize() {
+    assertThat(TourSearchService.tokenize("Big Sur: 3-day  Retreat!"), is(List.of("big", "sur", "3", "day", "retreat")));
+    assertThat(TourSearchService.tokenize(null), is(List.of()));
+  }
+
+  private static void stub(Tour tour, int id, String title, String description, String keywords) {
+    when(tour.getId()).thenReturn(id);
+    when(tour.getTitle()).thenReturn(title);
+    when(tour.getDescription()).thenReturn(description);
+    when(tour.getKeywords()).thenReturn(keywords);
+  }
+
+  private static List<Integer> ids(List<SearchHit> hits) {
+    return hits.stream().map(SearchHit::tourId).toList();
+  }
+}
@@ -0,0 +1,133 @@
+package com.example.explorecalijpa.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.example.explorecalijpa.web.AuthorizationMatrixTest;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Microbenchmark of the per-request authorization decision, skipped unless
+ * explorecali.load-test is true:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=AuthorizationBenchmarkTest -Dexplorecali.load-test=true
+ * </pre>
+ *
+ * Runs the cases of AuthorizationMatrixTest round robin on one thread, for a
+ * warm-up and then a measured period, through AuthorizationRules.isAllowed
+ * and through the check of the security filter chain's AuthorizationManager,
+ * which adds Spring Security's observation. The mean time per decision is
+ * printed. The cases with a wrong password are left out, as they fail
+ * authentication before any decision. Tunable with
+ * explorecali.load-test.warm-up (5s) and .duration (10s).
+ */
+@EnabledIfSystemProperty(named = "explorecali.load-test", matches = "true")
+@SpringBootTest(properties = {
+    "logging.level.com.example=WARN",
+    "logging.level.org.springframework.security=WARN",
+    "logging.level.org.hibernate=WARN" })
+public class AuthorizationBenchmarkTest {
+
+  @Autowired
+  private SecurityFilterChain securityFilterChain;
+
+  @Value("${explorecali.load-test.warm-up:5s}")
+  private Duration warmUp;
+
+  @Value("${explorecali.load-test.duration:10s}")
+  private Duration duration;
+
+  private record Case(HttpServletRequest request, Supplier<Authentication> caller, boolean allowed) {
+  }
+
+  @Test
+  void benchmark() throws Exception {
+    List<Case> cases = cases();
+    AuthorizationRules rules = SecurityConfig.authorizationRules();
+    AuthorizationManager<HttpServletRequest> chain = securityFilterChain.getFilters().stream()
+        .filter(AuthorizationFilter.class::isInstance).map(AuthorizationFilter.class::cast).findFirst()
+        .orElseThrow().getAuthorizationManager();
+    for (Case c : cases) {
+      assertThat(c.request().getMethod() + " " + c.request().getRequestURI(),
+          rules.isAllowed(c.caller(), c.request()), is(c.allowed()));
+    }
+
+    Predicate<Case> isAllowed = c -> rules.isAllowed(c.caller(), c.request());
+    Predicate<Case> check = c -> chain.check(c.caller(), c.request()).isGranted();
+    for (Predicate<Case> decision : List.of(isAllowed, check)) {
+      run(cases, decision, warmUp);
+    }
+    System.out.printf("%d cases: AuthorizationRules.isAllowed %.2f us, chain check %.2f us%n", cases.size(),
+        run(cases, isAllowed, duration), run(cases, check, duration));
+  }
+
+  // Mean microseconds per decision
+  private static double run(List<Case> cases, Predicate<Case> decision, Duration period) {
+    long decisions = 0;
+    long start = System.nanoTime();
+    long end = start + period.toNanos();
+    while (System.nanoTime() < end) {
+      for (Case c : cases) {
+        // the roles are resolved once per request, so not from the previous round
+        c.request().removeAttribute(AuthorizationRules.ROLES_ATTRIBUTE);
+        if (decision.test(c) != c.allowed()) {
+          throw new IllegalStateException("Decision changed for " + c.request().getRequestURI());
+        }
+      }
+      decisions += cases.size();
+    }
+    return (System.nanoTime() - start) / 1000.0 / decisions;
+  }
+
+  private static List<Case> cases() throws NoSuchMethodException {
+    String[] rows = AuthorizationMatrixTest.class
+        .getDeclaredMethod("authorization", String.class, String.class, String.class, String.class)
+        .getAnnotation(CsvSource.class).value();
+    MockServletContext servletContext = new MockServletContext();
+    List<Case> cases = new ArrayList<>();
+    for (String row : rows) {
+      String[] columns = row.split(",\\s+");
+      Authentication caller = switch (columns[2]) {
+        case "user" -> UsernamePasswordAuthenticationToken.authenticated("user", null,
+            AuthorityUtils.createAuthorityList("ROLE_USER"));
+        case "admin" -> UsernamePasswordAuthenticationToken.authenticated("admin", null,
+            AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+        case "none" -> new AnonymousAuthenticationToken("anonymous", "anonymousUser",
+            AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+        default -> null;
+      };
+      if (caller != null) {
+        HttpServletRequest request = MockMvcRequestBuilders
+            .request(HttpMethod.valueOf(columns[0]), URI.create(columns[1])).buildRequest(servletContext);
+        cases.add(new Case(request, () -> caller, columns[3].equals("ALLOW")));
+      }
+    }
+    return cases;
+  }
+}
@@ -0,0 +1,110 @@
+package com.example.explorecalijpa.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * The sampling filter and the dropping appender of the prod logging profile.
+ */
+public class LoggingTest {
+
+  private final LoggerContext context = new LoggerContext();
+
+  LoggingTest() {
+    // events copy the MDC on the way into the queue
+    context.setMDCAdapter(new LogbackMDCAdapter());
+  }
+
+  @Test
+  void infoIsSampledPerLogger() {
+    SamplingTurboFilter filter = new SamplingTurboFilter();
+    filter.setContext(context);
+    filter.addLoggerPrefix("com.example.explorecalijpa.web");
+    filter.setMaxPerSecond(3);
+    filter.start();
+    Logger controller = context.getLogger("com.example.explorecalijpa.web.TourRatingController");
+    Logger other = context.getLogger("com.example.explorecalijpa.web.TourController");
+    Logger config = context.getLogger("com.example.explorecalijpa.config.LoggingMetrics");
+
+    // the window is one second, so stay clear of its end
+    long millis = System.currentTimeMillis() % 1000;
+    if (millis > 800) {
+      sleep(1000 - millis);
+    }
+    int passed = 0;
+    for (int i = 0; i < 10; i++) {
+      if (filter.decide(null, controller, Level.INFO, "GET", null, null) == FilterReply.NEUTRAL) {
+        passed++;
+      }
+    }
+    assertThat(passed, is(3));
+    assertThat(filter.getSampledOut(), is(7L));
+    // every logger has its own budget, and only INFO lines are sampled
+    assertThat(filter.decide(null, other, Level.INFO, "GET", null, null), is(FilterReply.NEUTRAL));
+    assertThat(filter.decide(null, controller, Level.WARN, "GET", null, null), is(FilterReply.NEUTRAL));
+    assertThat(filter.decide(null, controller, Level.INFO, null, null, null), is(FilterReply.NEUTRAL));
+    assertThat(filter.decide(null, config, Level.INFO, "GET", null, null), is(FilterReply.NEUTRAL));
+  }
+
+  @Test
+  void fullQueueDropsAndCounts() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger written = new AtomicInteger();
+    AppenderBase<ILoggingEvent> stalledConsole = new AppenderBase<>() {
+      @Override
+      protected void append(ILoggingEvent event) {
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        written.incrementAndGet();
+      }
+    };
+    stalledConsole.setContext(context);
+    stalledConsole.start();
+
+    DroppingAsyncAppender appender = new DroppingAsyncAppender();
+    appender.setContext(context);
+    appender.setQueueSize(4);
+    appender.addAppender(stalledConsole);
+    appender.start();
+
+    Logger logger = context.getLogger("test");
+    long start = System.nanoTime();
+    for (int i = 0; i < 100; i++) {
+      appender.doAppend(new LoggingEvent("test", logger, Level.DEBUG, "event " + i, null, null));
+    }
+    // the caller never waited for the stalled console
+    assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 1, is(true));
+
+    release.countDown();
+    appender.stop();
+    assertThat(appender.getDropped(), greaterThan(0L));
+    assertThat(written.get() + appender.getDropped(), is(100L));
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package com.example.explorecalijpa.repo;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.explorecalijpa.model.Difficulty;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Run EXPLAIN on the SQL of the hot repository queries against H2 in MySQL
+ * mode, and fail if any of them reads its table with a table scan.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:queryplans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.explorecalijpa.repo.QueryPlanTest$SqlRecorder" })
+@Transactional
+public class QueryPlanTest {
+
+  /**
+   * Remembers every SQL statement Hibernate prepares.
+   */
+  public static class SqlRecorder implements StatementInspector {
+    static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+      statements.add(sql);
+      return sql;
+    }
+  }
+
+  @Autowired
+  private TourRatingRepository tourRatingRepository;
+
+  @Autowired
+  private TourRatingAggregateRepository aggregateRepository;
+
+  @Autowired
+  private TourRepository tourRepository;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @BeforeEach
+  void setUp() {
+    SqlRecorder.statements.clear();
+  }
+
+  @Test
+  void findByTourId() throws SQLException {
+    tourRatingRepository.findByTourId(1);
+    assertIndexed("tour_rating", "tour_id");
+  }
+
+  @Test
+  void findByTourIdAndCustomerId() throws SQLException {
+    tourRatingRepository.findByTourIdAndCustomerId(1, 4);
+    assertIndexed("tour_rating", "tour_id", "customer_id");
+  }
+
+  @Test
+  void findRowsByTourId() throws SQLException {
+    tourRatingRepository.findRowsByTourId(1);
+    tourRatingRepository.findRowsByTourId(1, 5, Limit.of(20));
+    assertIndexed("tour_rating", "tour_id");
+  }
+
+  @Test
+  void findCustomerIdsByTourIdAndCustomerIdIn() throws SQLException {
+    tourRatingRepository.findCustomerIdsByTourIdAndCustomerIdIn(1, List.of(4, 5, 6));
+    assertIndexed("tour_rating", "tour_id", "customer_id");
+  }
+
+  @Test
+  void findRowsByCustomerId() throws SQLException {
+    tourRatingRepository.findRowsByCustomerId(4, 0, Limit.of(20));
+    // the index must also deliver the order, or every page sorts all the ratings of the customer
+    for (String plan : assertIndexed("tour_rating", "customer_id")) {
+      assertThat(plan, containsString("index sorted"));
+    }
+  }
+
+  @Test
+  void refreshBounds() throws SQLException {
+    aggregateRepository.refreshBounds(1, 5);
+    assertIndexed("tour_rating", "tour_id");
+  }
+
+  @Test
+  void findByPriceBetween() throws SQLException {
+    tourRepository.findByPriceBetween(100, 800, PageRequest.of(1, 5, Sort.by("price", "id")));
+    for (String plan : assertIndexed("tour", "price")) {
+      if (!plan.contains("COUNT(")) {
+        assertThat(plan, containsString("index sorted"));
+      }
+    }
+  }
+
+  @Test
+  void findByIdIn() throws SQLException {
+    tourRepository.findByIdIn(List.of(1, 2, 3));
+    assertIndexed("tour", "id");
+  }
+
+  @Test
+  void findByTourIds() throws SQLException {
+    aggregateRepository.findByTourIds(List.of(1, 2, 3));
+    assertIndexed("tour", "id");
+    assertIndexed("tour_rating_aggregate", "tour_id");
+  }
+
+  @Test
+  void ratingReadsSkipTourTables() {
+    tourRatingRepository.findRowsByTourId(1);
+    tourRatingRepository.findRowsByTourId(1, 5, Limit.of(20));
+    tourRatingRepository.findRowsByCustomerId(4, 0, Limit.of(20));
+    tourRatingRepository.findCustomerIdsByTourIdAndCustomerIdIn(1, List.of(4, 5, 6));
+    tourRatingRepository.countByTourAndScore();
+    assertThat(SqlRecorder.statements.isEmpty(), is(false));
+    for (String sql : SqlRecorder.statements) {
+      assertThat(sql, not(matchesPattern("(?is).*\\b(tour|tour_package)\\b.*")));
+    }
+    // nor load a Tour or TourRating from the second-level cache into the persistence context
+    assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount(), is(0));
+  }
+
+  @Test
+  void summariesSkipLongColumns() {
+    tourRepository.findAllProjectedBy(PageRequest.of(0, 20));
+    tourRepository.findByDifficulty(Difficulty.Easy);
+    tourRepository.findByTourPackageCode("BC");
+    tourRepository.findByPriceBetween(100, 800, PageRequest.of(0, 5));
+    for (String sql : SqlRecorder.statements) {
+      assertThat(sql, not(matchesPattern("(?s).*\\b(description|blurb|bullets)\\b.*")));
+    }
+  }
+
+  /**
+   * Assert every read of the table by the recorded SQL seeks an index on the
+   * given columns.
+   *
+   * @return the plans
+   */
+  private List<String> assertIndexed(String table, String... columns) throws SQLException {
+    // H2 writes the index used to read a table, and its condition, as a comment after the table
+    Pattern tableAccess = Pattern.compile("\"" + table + "\" \"\\w+\"\\s*/\\* ([^*]*)\\*/");
+    List<String> queries = List.copyOf(SqlRecorder.statements);
+    assertThat(queries.isEmpty(), is(false));
+    Connection connection = DataSourceUtils.getConnection(dataSource);
+    List<String> plans = new ArrayList<>();
+    for (String sql : queries) {
+      String plan = explain(connection, sql);
+      Matcher access = tableAccess.matcher(plan);
+      assertThat(sql, access.find(), is(true));
+      do {
+        assertThat(sql, access.group(1), not(containsString("tableScan")));
+        for (String column : columns) {
+          assertThat(sql, access.group(1), matchesPattern("(?s).*\\b" + column + " (IN|[=<>]).*"));
+        }
+      } while (access.find());
+      plans.add(plan);
+    }
+    return plans;
+  }
+
+  private static String explain(Connection connection, String sql) throws SQLException {
+    try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+      for (int i = 1; i <= ps.getParameterMetaData().getParameterCount(); i++) {
+        ps.setInt(i, 1);
+      }
+      StringBuilder plan = new StringBuilder();
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          plan.append(rs.getString(1));
+        }
+      }
+      return plan.toString();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.example.explorecalijpa.repo;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.explorecalijpa.business.RatingResult;
+import com.example.explorecalijpa.business.TourRatingService;
+
+/**
+ * Throughput of TourRatingService.rateMany, skipped unless
+ * explorecali.load-test is true:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=RateManyLoadTest -Dexplorecali.load-test=true
+ * </pre>
+ *
+ * Rates a tour for batches of new customers, one rateMany call per batch,
+ * after a warm-up batch, and prints the time and rows per second of each.
+ * Tunable with explorecali.load-test.customers (10000,100000) and
+ * .warm-up-customers (1000).
+ */
+@EnabledIfSystemProperty(named = "explorecali.load-test", matches = "true")
+@SpringBootTest(properties = {
+    "logging.level.com.example=WARN",
+    "logging.level.org.hibernate=WARN" })
+public class RateManyLoadTest {
+  private static final int TOUR_ID = 1;
+  private static final int SCORE = 4;
+  // Clear of the customer ids of the seeded ratings and the other tests
+  private static final int FIRST_CUSTOMER_ID = 1_000_000;
+
+  @Autowired
+  private TourRatingService tourRatingService;
+
+  @Value("${explorecali.load-test.customers:10000,100000}")
+  private List<Integer> batches;
+
+  @Value("${explorecali.load-test.warm-up-customers:1000}")
+  private int warmUpCustomers;
+
+  @Test
+  void load() {
+    int next = FIRST_CUSTOMER_ID;
+    rate(next, warmUpCustomers);
+    next += warmUpCustomers;
+    for (int customers : batches) {
+      long start = System.nanoTime();
+      rate(next, customers);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      next += customers;
+
+      System.out.printf("rateMany of %d customers: %.1f s, %.0f rows/s%n", customers, seconds, customers / seconds);
+    }
+  }
+
+  private void rate(int firstCustomerId, int customers) {
+    List<RatingResult> results = tourRatingService.rateMany(TOUR_ID, SCORE,
+        IntStream.range(firstCustomerId, firstCustomerId + customers).boxed().toList());
+    assertThat(results.stream().filter(r -> r.status() == RatingResult.Status.CREATED).count(),
+        is((long) customers));
+  }
+}
@@ -0,0 +1,106 @@
+package com.example.explorecalijpa.repo;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.example.explorecalijpa.business.TourRatingService;
+import com.example.explorecalijpa.model.Tour;
+import com.jayway.jsonpath.JsonPath;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tours and their packages come from the second-level cache, so the
+ * TourRatingService.verifyTour of every rating lookup issues no SQL. The hits
+ * and misses are published at /actuator/metrics with the default properties.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+public class TourCacheTest {
+
+  private static final int TOUR_ID = 1;
+
+  @Autowired
+  private TourRepository tourRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private TourRatingService tourRatingService;
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    tourRatingService.lookupRatings(TOUR_ID);
+    statistics.clear();
+  }
+
+  @Test
+  void verifyTourIssuesNoSql() {
+    for (int i = 0; i < 10; i++) {
+      tourRatingService.lookupRatings(TOUR_ID);
+    }
+
+    // only the ratings are read from the database
+    assertThat(statistics.getPrepareStatementCount(), is(10L));
+    assertThat(statistics.getEntityStatistics(Tour.class.getName()).getLoadCount(), is(0L));
+    assertThat(statistics.getSecondLevelCacheHitCount(), greaterThanOrEqualTo(10L));
+  }
+
+  @Test
+  void hitsAndMissesAreMetrics() {
+    entityManagerFactory.getCache().evict(Tour.class, TOUR_ID);
+    double hits = cacheRequests("hit");
+    double misses = cacheRequests("miss");
+
+    // the first lookup loads the tour into the cache, the others read it from there
+    for (int i = 0; i < 3; i++) {
+      tourRatingService.lookupRatings(TOUR_ID);
+    }
+
+    assertThat(cacheRequests("miss") - misses, is(1.0));
+    assertThat(cacheRequests("hit") - hits, is(2.0));
+  }
+
+  private double cacheRequests(String result) {
+    ResponseEntity<String> response = restTemplate.withBasicAuth("admin", "admin123").getForEntity(
+        "/actuator/metrics/hibernate.second.level.cache.requests?tag=region:{region}&tag=result:{result}",
+        String.class, Tour.class.getName(), result);
+    assertThat(response.getStatusCode(), is(HttpStatus.OK));
+    return JsonPath.<Double>read(response.getBody(), "$.measurements[0].value");
+  }
+
+  @Test
+  void restWritesEvict() {
+    String title = tourRepository.findById(TOUR_ID).orElseThrow().getTitle();
+    TestRestTemplate admin = restTemplate.withBasicAuth("admin", "admin123");
+    try {
+      admin.exchange("/tours/" + TOUR_ID, HttpMethod.PATCH, new HttpEntity<>(Map.of("title", "Renamed")), String.class);
+      assertThat(tourRepository.findById(TOUR_ID).orElseThrow().getTitle(), is("Renamed"));
+    } finally {
+      admin.exchange("/tours/" + TOUR_ID, HttpMethod.PATCH, new HttpEntity<>(Map.of("title", title)), String.class);
+    }
+    assertThat(tourRepository.findById(TOUR_ID).orElseThrow().getTitle(), is(title));
+  }
+}
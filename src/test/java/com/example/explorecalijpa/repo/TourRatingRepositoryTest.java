@@ -0,0 +1,192 @@
+package com.example.explorecalijpa.repo;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.explorecalijpa.business.RatingResult;
+import com.example.explorecalijpa.business.TourRatingAggregateService;
+import com.example.explorecalijpa.business.TourRatingService;
+import com.example.explorecalijpa.model.Tour;
+import com.example.explorecalijpa.model.TourRating;
+import com.example.explorecalijpa.model.TourRatingAggregate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Run the repository queries against the Flyway managed H2 schema.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class TourRatingRepositoryTest {
+
+  private static final int TOUR_ID = 1;
+  private static final int SCORE = 4;
+  // Highest tour_rating id inserted by V1.4__AddTourRatings.sql
+  private static final int SEEDED_MAX_ID = 9;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+  private int batchSize;
+
+  @Autowired
+  private TourRatingRepository repository;
+
+  @Autowired
+  private TourRatingAggregateRepository aggregateRepository;
+
+  @Autowired
+  private TourRatingAggregateService aggregateService;
+
+  @Autowired
+  private TourRatingService tourRatingService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void insertAllRunsAsBatches() {
+    List<Integer> customers = IntStream.range(10_000, 11_000).boxed().toList();
+
+    repository.insertAll(TOUR_ID, SCORE, customers);
+
+    // 1000 rows but only one prepared insert per batch
+    assertThat(statistics.getEntityInsertCount(), is(1000L));
+    assertThat(statistics.getPrepareStatementCount(), is(1000L / batchSize));
+
+    // pooled ids continue after the rows inserted by the migrations
+    List<TourRating> inserted = repository.findByTourId(TOUR_ID).stream()
+        .filter(r -> r.getCustomerId() >= 10_000).toList();
+    assertThat(inserted.size(), is(1000));
+    assertThat(inserted.stream().mapToInt(TourRating::getId).min().getAsInt(), greaterThan(SEEDED_MAX_ID));
+  }
+
+  @Test
+  void insertAllLeavesTheCallerEntitiesManaged() {
+    Tour tour = entityManager.find(Tour.class, TOUR_ID);
+    int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+
+    repository.insertAll(TOUR_ID, SCORE, IntStream.range(10_000, 10_000 + batchSize + 1).boxed().toList());
+
+    // the inserted ratings are detached, nothing else
+    assertThat(entityManager.contains(tour), is(true));
+    assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount(), is(managed));
+  }
+
+  @Test
+  void rateManyProbesLongBatchesInChunks() {
+    List<Integer> customers = IntStream.range(10_000, 11_500).boxed().toList();
+    tourRatingService.rateMany(TOUR_ID, SCORE, customers.subList(0, 100));
+    statistics.clear();
+
+    List<RatingResult> results = tourRatingService.rateMany(TOUR_ID, SCORE, customers);
+
+    // 2 probes of 1000 and 500 customers, the inserts in batches and 3 writes
+    // of the aggregate and the collection versions
+    assertThat(statistics.getPrepareStatementCount(), is(2L + 1400 / batchSize + 3));
+    assertThat(results.stream().filter(r -> r.status() == RatingResult.Status.CREATED).count(), is(1400L));
+  }
+
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  void concurrentFirstRatingsAreAllCounted() throws Exception {
+    // Tour ids without an aggregate; the aggregate has no foreign key
+    int firstTourId = 1_000_000;
+    int tours = 20;
+    int raters = 8;
+    try (ExecutorService executor = Executors.newFixedThreadPool(raters)) {
+      for (int tourId = firstTourId; tourId < firstTourId + tours; tourId++) {
+        int rated = tourId;
+        CyclicBarrier start = new CyclicBarrier(raters);
+        List<Future<?>> ratings = new ArrayList<>();
+        for (int i = 0; i < raters; i++) {
+          ratings.add(executor.submit(() -> {
+            start.await();
+            aggregateService.recordAdded(rated, SCORE, 1);
+            return null;
+          }));
+        }
+        for (Future<?> rating : ratings) {
+          rating.get();
+        }
+        assertThat(aggregateRepository.findById(rated).get(),
+            is(new TourRatingAggregate(rated, (long) raters, (long) SCORE * raters, SCORE, SCORE)));
+      }
+    } finally {
+      aggregateRepository.deleteAllById(IntStream.range(firstTourId, firstTourId + tours).boxed().toList());
+    }
+  }
+
+  @Test
+  void recomputeCountsEveryRating() {
+    TourRatingAggregate actual = aggregateRepository.computeFromRatings().stream()
+        .filter(a -> a.getTourId() == TOUR_ID).findFirst().get();
+    aggregateRepository.addScores(TOUR_ID, 3, 15, 0, 5);
+
+    assertThat(aggregateRepository.recompute(TOUR_ID), is(1));
+    assertThat(aggregateRepository.findById(TOUR_ID).get(), is(actual));
+  }
+
+  @Test
+  void streamAllFiltersRows() {
+    List<TourRatingRow> rows = new ArrayList<>();
+
+    repository.streamAll(2, 3, null, rows::add);
+
+    // V1.4__AddTourRatings.sql rates tour 2 once, by customer 100
+    assertThat(rows, is(List.of(new TourRatingRow(9, 2, 100, 5, "I really thought it could have been better"))));
+
+    rows.clear();
+    repository.streamAll(null, null, 4, rows::add);
+    assertThat(rows.size(), is(1));
+    assertThat(rows.get(0).tourId(), is(TOUR_ID));
+  }
+
+  @Test
+  void findRowsByCustomerIdSeeksByTour() {
+    int customerId = 20_000;
+    repository.insertAll(2, SCORE, List.of(customerId));
+    repository.insertAll(1, SCORE, List.of(customerId));
+    repository.insertAll(3, SCORE, List.of(customerId));
+
+    List<TourRatingRow> first = repository.findRowsByCustomerId(customerId, Integer.MIN_VALUE, Limit.of(2));
+    assertThat(first.stream().map(TourRatingRow::tourId).toList(), is(List.of(1, 2)));
+
+    List<TourRatingRow> second = repository.findRowsByCustomerId(customerId, 2, Limit.of(2));
+    assertThat(second.stream().map(TourRatingRow::tourId).toList(), is(List.of(3)));
+    assertThat(second.get(0).customerId(), is(customerId));
+    // rows are built from the columns, never from entities
+    assertThat(statistics.getEntityLoadCount(), is(0L));
+  }
+}
@@ -0,0 +1,85 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.explorecalijpa.config.CachingAuthenticationProvider;
+
+/**
+ * HTTP Basic checks a password with BCrypt once, then trusts it until the
+ * cache entry expires.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class AuthenticationCacheTest {
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @SpyBean
+  private PasswordEncoder passwordEncoder;
+
+  @Autowired
+  private UserDetailsService userDetailsService;
+
+  @Test
+  void verifiedCredentialsSkipBCrypt() {
+    assertThat(status("user", "password"), is(HttpStatus.OK));
+    clearInvocations(passwordEncoder);
+    for (int i = 0; i < 5; i++) {
+      assertThat(status("user", "password"), is(HttpStatus.OK));
+    }
+    verify(passwordEncoder, never()).matches(any(), anyString());
+  }
+
+  @Test
+  void wrongPasswordsAreAlwaysChecked() {
+    assertThat(status("admin", "admin123"), is(HttpStatus.OK));
+    clearInvocations(passwordEncoder);
+    assertThat(status("admin", "wrong"), is(HttpStatus.UNAUTHORIZED));
+    assertThat(status("admin", "wrong"), is(HttpStatus.UNAUTHORIZED));
+    // another user's password is not the admin's
+    assertThat(status("admin", "password"), is(HttpStatus.UNAUTHORIZED));
+    verify(passwordEncoder, times(3)).matches(any(), anyString());
+  }
+
+  @Test
+  void expiredEntriesAreCheckedAgain() {
+    DaoAuthenticationProvider dao = new DaoAuthenticationProvider(passwordEncoder);
+    dao.setUserDetailsService(userDetailsService);
+    CachingAuthenticationProvider provider = new CachingAuthenticationProvider(dao, Duration.ZERO, 10);
+    clearInvocations(passwordEncoder);
+
+    provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "password"));
+    provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "password"));
+    verify(passwordEncoder, times(2)).matches(any(), anyString());
+    assertThrows(BadCredentialsException.class, () -> provider.authenticate(
+        UsernamePasswordAuthenticationToken.unauthenticated("user", "wrong")));
+  }
+
+  private HttpStatus status(String username, String password) {
+    return HttpStatus.valueOf(restTemplate.withBasicAuth(username, password)
+        .getForEntity("/tours/1", String.class).getStatusCode().value());
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Load test of HTTP Basic authentication with and without the
+ * CachingAuthenticationProvider, skipped unless explorecali.load-test is
+ * true. Run it once per mode:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=AuthenticationLoadTest -Dexplorecali.load-test=true -Dexplorecali.auth-cache.enabled=true
+ * ./mvnw test -Dtest=AuthenticationLoadTest -Dexplorecali.load-test=true -Dexplorecali.auth-cache.enabled=false
+ * </pre>
+ *
+ * One thread sends requests with the same credentials through the full
+ * security chain via MockMvc, for a warm-up and then a measured period per
+ * URL. The requests per second and per second of CPU time of that thread, i.e.
+ * per core, are printed. Tunable with explorecali.load-test.warm-up (3s) and
+ * .duration (5s).
+ */
+@EnabledIfSystemProperty(named = "explorecali.load-test", matches = "true")
+@SpringBootTest(properties = {
+    "explorecali.response-cache.enabled=false",
+    "logging.level.com.example=WARN",
+    "logging.level.org.springframework.security=WARN",
+    "logging.level.org.hibernate=WARN" })
+@AutoConfigureMockMvc
+public class AuthenticationLoadTest {
+  private static final List<String> URLS = List.of("/tours/1", "/tours/1/ratings/average");
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Value("${explorecali.auth-cache.enabled:true}")
+  private boolean authCache;
+
+  @Value("${explorecali.load-test.warm-up:3s}")
+  private Duration warmUp;
+
+  @Value("${explorecali.load-test.duration:5s}")
+  private Duration duration;
+
+  @Test
+  void load() throws Exception {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    for (String url : URLS) {
+      run(url, warmUp);
+      long cpuStart = threads.getCurrentThreadCpuTime();
+      int requests = run(url, duration);
+      double cpuSeconds = (threads.getCurrentThreadCpuTime() - cpuStart) / 1e9;
+
+      System.out.printf("auth cache %s, %s: %.1f req/s, %.1f req per CPU second%n", authCache ? "on" : "off", url,
+          requests / (double) duration.toSeconds(), requests / cpuSeconds);
+    }
+  }
+
+  private int run(String url, Duration period) throws Exception {
+    int requests = 0;
+    long end = System.nanoTime() + period.toNanos();
+    while (System.nanoTime() < end) {
+      int status = mockMvc.perform(get(url).with(httpBasic("user", "password"))).andReturn().getResponse()
+          .getStatus();
+      assertThat(url, status, is(200));
+      requests++;
+    }
+    return requests;
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+
+import java.net.URI;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * Who may call what. ALLOW means the request got past authorization, whatever
+ * the handler answered; the admin writes are built to fail in the handler so
+ * they change nothing.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AuthorizationMatrixTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @ParameterizedTest(name = "{0} {1} as {2} -> {3}")
+  @CsvSource({
+      // public paths
+      "GET,     /actuator/health,               none,  ALLOW",
+      "GET,     /actuator/info,                 none,  ALLOW",
+      "GET,     /v3/api-docs,                   none,  ALLOW",
+      "GET,     /swagger-ui/index.html,         none,  ALLOW",
+      "POST,    /actuator/health,               none,  ALLOW",
+      "GET,     /actuator/health,               wrong, 401",
+      // the rest of actuator is for admins
+      "GET,     /actuator/health/liveness,      none,  401",
+      "GET,     /actuator/health/liveness,      user,  403",
+      "GET,     /actuator/health/,              user,  403",
+      "GET,     /actuator/metrics,              none,  401",
+      "GET,     /actuator/metrics,              user,  403",
+      "GET,     /actuator/metrics,              admin, ALLOW",
+      // tour and package reads
+      "GET,     /tours,                         none,  401",
+      "GET,     /tours,                         wrong, 401",
+      "GET,     /tours,                         user,  ALLOW",
+      "GET,     /tours,                         admin, ALLOW",
+      "GET,     /tours/1,                       user,  ALLOW",
+      "GET,     /tours/1/ratings,               none,  401",
+      "GET,     /tours/,                        none,  401",
+      "GET,     /tours/1/ratings,               user,  ALLOW",
+      "GET,     /tours/1/ratings/average,       user,  ALLOW",
+      "GET,     /tours/top,                     user,  ALLOW",
+      "GET,     /packages,                      none,  401",
+      "GET,     /packages/BC,                   user,  ALLOW",
+      "HEAD,    /tours,                         none,  401",
+      "HEAD,    /tours,                         user,  ALLOW",
+      "OPTIONS, /tours,                         none,  401",
+      "OPTIONS, /tours,                         user,  ALLOW",
+      // tour and package writes
+      "POST,    /tours/1/ratings,               none,  401",
+      "POST,    /tours/1/ratings,               user,  403",
+      "POST,    /tours/1/ratings,               admin, ALLOW",
+      "PUT,     /tours/1/ratings,               user,  403",
+      "PUT,     /tours/1/ratings,               admin, ALLOW",
+      "PATCH,   /tours/999999,                  none,  401",
+      "PATCH,   /tours/999999,                  user,  403",
+      "PATCH,   /tours/999999,                  admin, ALLOW",
+      "DELETE,  /tours/999999,                  user,  403",
+      "DELETE,  /tours/999999,                  admin, ALLOW",
+      "POST,    /%74ours/1/ratings,             user,  403",
+      "POST,    /packages,                      user,  403",
+      "POST,    /packages,                      admin, ALLOW",
+      "DELETE,  /packages/ZZ,                   user,  403",
+      "DELETE,  /packages/ZZ,                   admin, ALLOW",
+      // ratings across tours
+      "GET,     /ratings/averages?tourIds=1,    none,  401",
+      "GET,     /ratings/averages?tourIds=1,    user,  ALLOW",
+      "GET,     /ratings/export?tourIdTo=2,     user,  403",
+      "GET,     /ratings/export?tourIdTo=2,     admin, ALLOW",
+      "POST,    /ratings/export,                user,  ALLOW",
+      // customer ratings
+      "GET,     /customers/4/ratings,           none,  401",
+      "GET,     /customers/4/ratings,           user,  403",
+      "GET,     /customers/4/ratings,           admin, ALLOW",
+      "GET,     /customers/4/ratings/x,         user,  ALLOW",
+      // anything else
+      "GET,     /toursx,                        none,  401",
+      "GET,     /toursx,                        user,  ALLOW",
+      "GET,     /,                              none,  401",
+      "GET,     /,                              user,  ALLOW" })
+  void authorization(String method, String url, String caller, String expected) throws Exception {
+    MockHttpServletRequestBuilder request = request(HttpMethod.valueOf(method), URI.create(url));
+    switch (caller) {
+      case "user" -> request.with(httpBasic("user", "password"));
+      case "admin" -> request.with(httpBasic("admin", "admin123"));
+      case "wrong" -> request.with(httpBasic("user", "wrong"));
+      default -> {
+      }
+    }
+    if (method.equals("POST") || method.equals("PUT")) {
+      // invalid bodies, so allowed writes fail validation instead of writing
+      request.contentType(url.startsWith("/packages") ? MediaType.TEXT_PLAIN : MediaType.APPLICATION_JSON)
+          .content("{}");
+    }
+    int status = mockMvc.perform(request).andReturn().getResponse().getStatus();
+    String actual = status == 401 || status == 403 ? String.valueOf(status) : "ALLOW";
+    assertThat(method + " " + url + " as " + caller + " answered " + status, actual, is(expected));
+  }
+}
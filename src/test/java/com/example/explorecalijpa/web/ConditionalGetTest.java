@@ -0,0 +1,115 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Conditional GET of the tour, package and rating resources.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class ConditionalGetTest {
+
+  private static final int TOUR_ID = 1;
+  private static final int CUSTOMER_ID = 9001;
+  private static final String RATINGS_URL = "/tours/" + TOUR_ID + "/ratings";
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private TestRestTemplate user;
+  private TestRestTemplate admin;
+
+  @BeforeEach
+  void setUp() {
+    user = restTemplate.withBasicAuth("user", "password");
+    admin = restTemplate.withBasicAuth("admin", "admin123");
+  }
+
+  @Test
+  void unchangedCollectionsAnswer304FromTheVersionAlone() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    for (String url : new String[] { "/tours", "/packages", RATINGS_URL }) {
+      String etag = get(url, null).getHeaders().getETag();
+      assertThat(url, etag, startsWith("W/\""));
+
+      statistics.clear();
+      ResponseEntity<String> response = get(url, etag);
+      assertThat(url, response.getStatusCode(), is(HttpStatus.NOT_MODIFIED));
+      assertThat(url, response.getHeaders().getETag(), is(etag));
+      assertThat(url, response.getBody(), nullValue());
+      assertThat(url, statistics.getPrepareStatementCount(), is(1L));
+      assertThat(url, statistics.getEntityLoadCount(), is(0L));
+    }
+  }
+
+  @Test
+  void ratingWritesChangeTheRatingsETag() {
+    String etag = get(RATINGS_URL, null).getHeaders().getETag();
+    assertThat(admin.postForEntity(RATINGS_URL, new RatingDto(4, "nice", CUSTOMER_ID), String.class)
+        .getStatusCode(), is(HttpStatus.CREATED));
+    try {
+      ResponseEntity<String> response = get(RATINGS_URL, etag);
+      assertThat(response.getStatusCode(), is(HttpStatus.OK));
+      assertThat(response.getHeaders().getETag(), not(etag));
+
+      // the comment alone changes the collection too
+      etag = response.getHeaders().getETag();
+      admin.put(RATINGS_URL, new RatingDto(4, "nicer", CUSTOMER_ID));
+      assertThat(get(RATINGS_URL, etag).getStatusCode(), is(HttpStatus.OK));
+    } finally {
+      admin.delete(RATINGS_URL + "/" + CUSTOMER_ID);
+    }
+  }
+
+  @Test
+  void restWritesChangeTheCollectionETag() {
+    String etag = get("/tours", null).getHeaders().getETag();
+    String title = user.getForObject("/tours/" + TOUR_ID, Map.class).get("title").toString();
+    try {
+      assertThat(admin.exchange("/tours/" + TOUR_ID, HttpMethod.PATCH, new HttpEntity<>(Map.of("title", "Renamed")),
+          String.class).getStatusCode().is2xxSuccessful(), is(true));
+      assertThat(get("/tours", etag).getStatusCode(), is(HttpStatus.OK));
+    } finally {
+      admin.exchange("/tours/" + TOUR_ID, HttpMethod.PATCH, new HttpEntity<>(Map.of("title", title)), String.class);
+    }
+  }
+
+  @Test
+  void itemsCarryTheEntityVersion() {
+    String etag = get("/tours/" + TOUR_ID, null).getHeaders().getETag();
+    assertThat(etag, not(nullValue()));
+    assertThat(get("/tours/" + TOUR_ID, etag).getStatusCode(), is(HttpStatus.NOT_MODIFIED));
+  }
+
+  private ResponseEntity<String> get(String url, String ifNoneMatch) {
+    HttpHeaders headers = new HttpHeaders();
+    if (ifNoneMatch != null) {
+      headers.setIfNoneMatch(ifNoneMatch);
+    }
+    return user.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The prod logging profile publishes its drop counters and takes level
+ * changes from the actuator.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@ActiveProfiles("prod")
+public class ProdLoggingTest {
+  private static final String LOGGER_URL = "/actuator/loggers/com.example.explorecalijpa.business";
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  void dropCountersArePublished() {
+    assertThat(meterRegistry.find("logback.events.dropped").functionCounter(), not(nullValue()));
+    assertThat(meterRegistry.find("logback.events.sampled").functionCounter(), not(nullValue()));
+  }
+
+  @Test
+  void adminsSwitchLevelsAtRuntime() {
+    TestRestTemplate admin = restTemplate.withBasicAuth("admin", "admin123");
+    assertThat(admin.getForObject(LOGGER_URL, Map.class).get("effectiveLevel"), is("INFO"));
+
+    assertThat(restTemplate.withBasicAuth("user", "password").postForEntity(LOGGER_URL,
+        Map.of("configuredLevel", "DEBUG"), String.class).getStatusCode(), is(HttpStatus.FORBIDDEN));
+    assertThat(admin.postForEntity(LOGGER_URL, Map.of("configuredLevel", "DEBUG"), String.class)
+        .getStatusCode(), is(HttpStatus.NO_CONTENT));
+    try {
+      assertThat(admin.getForObject(LOGGER_URL, Map.class).get("effectiveLevel"), is("DEBUG"));
+    } finally {
+      admin.postForEntity(LOGGER_URL, Map.of("configuredLevel", "INFO"), String.class);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.jayway.jsonpath.JsonPath;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Average scores of several tours in one request, and the NDJSON export.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class RatingControllerTest {
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Test
+  void averagesReportMissingTours() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    ResponseEntity<String> response = get("/ratings/averages?tourIds=2,1,999,1");
+    assertThat(response.getStatusCode(), is(HttpStatus.OK));
+    assertThat(statistics.getPrepareStatementCount(), is(1L));
+
+    Map<String, Object> averages = JsonPath.read(response.getBody(), "$.averages");
+    assertThat(averages.keySet(), contains("2", "1"));
+    assertThat(averages.get("1"), not(nullValue()));
+    assertThat(averages, not(hasKey("999")));
+    List<Integer> missing = JsonPath.read(response.getBody(), "$.missingTourIds");
+    assertThat(missing, contains(999));
+  }
+
+  @Test
+  void longIdListsAreReadInChunks() {
+    String ids = IntStream.rangeClosed(1, 1500).mapToObj(String::valueOf).collect(Collectors.joining(","));
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    ResponseEntity<String> response = get("/ratings/averages?tourIds=" + ids);
+    assertThat(response.getStatusCode(), is(HttpStatus.OK));
+    assertThat(statistics.getPrepareStatementCount(), is(2L));
+    List<Integer> missing = JsonPath.read(response.getBody(), "$.missingTourIds");
+    Map<String, Object> averages = JsonPath.read(response.getBody(), "$.averages");
+    assertThat(averages.size() + missing.size(), is(1500));
+  }
+
+  @Test
+  void exportEndsEveryRecordWithANewline() {
+    ResponseEntity<String> response = restTemplate.withBasicAuth("admin", "admin123")
+        .getForEntity("/ratings/export?tourIdFrom=1&tourIdTo=3", String.class);
+    assertThat(response.getStatusCode(), is(HttpStatus.OK));
+    String body = response.getBody();
+    assertThat(body, endsWith("}\n"));
+    List<String> records = body.lines().toList();
+    // as many newlines as records, so line-oriented readers see them all
+    assertThat(body.chars().filter(c -> c == '\n').count(), is((long) records.size()));
+    for (String record : records) {
+      assertThat(record, JsonPath.read(record, "$"), hasKey("tourId"));
+    }
+
+    ResponseEntity<String> empty = restTemplate.withBasicAuth("admin", "admin123")
+        .getForEntity("/ratings/export?customerId=-1", String.class);
+    assertThat(empty.getStatusCode(), is(HttpStatus.OK));
+    assertThat(empty.getBody(), nullValue());
+  }
+
+  private ResponseEntity<String> get(String url) {
+    return restTemplate.withBasicAuth("user", "password").getForEntity(url, String.class);
+  }
+}
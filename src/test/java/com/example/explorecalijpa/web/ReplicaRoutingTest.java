@@ -0,0 +1,118 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.sql.Timestamp;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.explorecalijpa.config.ReplicaLagMonitor;
+import com.example.explorecalijpa.config.ReplicaRoutingFilter;
+
+/**
+ * Reads go to the replica while it keeps up, except for a client that just
+ * wrote. Two H2 databases stand in for the primary and the replica; the
+ * replica has a rating the primary does not, which tells where a read went.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+    "explorecali.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+    "explorecali.datasource.replica.heartbeat-interval=PT1H",
+    "explorecali.datasource.replica.sticky-window=1m" })
+public class ReplicaRoutingTest {
+  private static final String RATINGS_URL = "/tours/1/ratings?unpaged=true";
+  private static final String REPLICA_ONLY = "only on the replica";
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  @Qualifier("replicaDataSource")
+  private DataSource replicaDataSource;
+
+  @Autowired
+  private ReplicaLagMonitor lagMonitor;
+
+  private JdbcTemplate replica;
+
+  @BeforeEach
+  void setupReplica() {
+    // The replica of a real primary gets the schema by replication
+    Flyway.configure().dataSource(replicaDataSource).load().migrate();
+    replica = new JdbcTemplate(replicaDataSource);
+    replica.update("DELETE FROM tour_rating WHERE id = 900000");
+    replica.update("INSERT INTO tour_rating (id, tour_id, customer_id, score, comment) VALUES (900000, 1, 900, 5, ?)",
+        REPLICA_ONLY);
+    replica.update("DELETE FROM tour_package WHERE code = 'RP'");
+    replica.update("INSERT INTO tour_package (code, name) VALUES ('RP', ?)", REPLICA_ONLY);
+    replicate(0);
+  }
+
+  @Test
+  void readsGoToTheReplica() {
+    assertThat(ratings("user", "password"), containsString(REPLICA_ONLY));
+    // Spring Data REST reads too
+    assertThat(restTemplate.withBasicAuth("user", "password").getForObject("/packages/RP", String.class),
+        containsString(REPLICA_ONLY));
+  }
+
+  @Test
+  void laggingReplicaFallsBackToThePrimary() {
+    replicate(10_000);
+    assertThat(lagMonitor.isReplicaUsable(), is(false));
+    assertThat(ratings("user", "password"), not(containsString(REPLICA_ONLY)));
+  }
+
+  @Test
+  void clientsReadTheirOwnWrites() {
+    TestRestTemplate admin = restTemplate.withBasicAuth("admin", "admin123");
+    ResponseEntity<String> written = admin.postForEntity("/tours/1/ratings",
+        new RatingDto(4, "written by admin", 901), String.class);
+    assertThat(written.getStatusCode(), is(HttpStatus.CREATED));
+    // the client, not the instance, remembers the write for the sticky-window
+    String cookie = written.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+    assertThat(cookie, startsWith(ReplicaRoutingFilter.STICKY_COOKIE + "=1"));
+    assertThat(cookie, containsString("Max-Age=60"));
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.add(HttpHeaders.COOKIE, cookie.substring(0, cookie.indexOf(';')));
+    String adminRead = admin.exchange(RATINGS_URL, HttpMethod.GET, new HttpEntity<>(headers), String.class).getBody();
+    assertThat(adminRead, containsString("written by admin"));
+    assertThat(adminRead, not(containsString(REPLICA_ONLY)));
+    // the replica has not caught up, which clients without the cookie see
+    assertThat(ratings("admin", "admin123"), containsString(REPLICA_ONLY));
+    String userRead = ratings("user", "password");
+    assertThat(userRead, containsString(REPLICA_ONLY));
+    assertThat(userRead, not(containsString("written by admin")));
+  }
+
+  // Copy a heartbeat lagMillis old to the replica, then measure the lag; both
+  // databases run in this JVM, so the primary's clock is the JVM's
+  private void replicate(long lagMillis) {
+    replica.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1",
+        new Timestamp(System.currentTimeMillis() - lagMillis));
+    lagMonitor.refresh();
+  }
+
+  private String ratings(String username, String password) {
+    return restTemplate.withBasicAuth(username, password).getForObject(RATINGS_URL, String.class);
+  }
+}
@@ -0,0 +1,138 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+
+import com.example.explorecalijpa.business.CollectionVersionService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The /tours and /packages responses come from the response cache.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class ResponseCacheTest {
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private CollectionVersionService collectionVersionService;
+
+  @Value("${explorecali.response-cache.max-variants}")
+  private int maxVariants;
+
+  private TestRestTemplate user;
+
+  @BeforeEach
+  void setUp() {
+    user = restTemplate.withBasicAuth("user", "password");
+  }
+
+  @Test
+  void hitsLoadNoEntity() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    for (String url : new String[] { "/tours", "/packages" }) {
+      String body = user.getForObject(url, String.class);
+
+      statistics.clear();
+      assertThat(url, user.getForObject(url, String.class), is(body));
+      // only the collection version is read
+      assertThat(url, statistics.getPrepareStatementCount(), is(1L));
+      assertThat(url, statistics.getEntityLoadCount(), is(0L));
+    }
+  }
+
+  @Test
+  void fullCollectionsMakeRoomForNewerVersions() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    for (int i = 0; i < maxVariants; i++) {
+      user.getForObject("/packages?variant=" + i, String.class);
+    }
+    // a version change that Spring Data REST does not see
+    collectionVersionService.increment(CollectionVersionService.PACKAGES);
+
+    user.getForObject("/packages?variant=new", String.class);
+    statistics.clear();
+    user.getForObject("/packages?variant=new", String.class);
+    assertThat(statistics.getEntityLoadCount(), is(0L));
+  }
+
+  @Test
+  void hitsAreGzippedWhenAccepted() throws IOException, InterruptedException {
+    String plain = new String(get("identity").body(), StandardCharsets.UTF_8);
+
+    HttpResponse<byte[]> gzipped = get("gzip");
+    assertThat(gzipped.headers().firstValue("Content-Encoding").orElse(null), is("gzip"));
+    // the encodings are not byte for byte the same, so their ETag is weak
+    assertThat(gzipped.headers().firstValue("ETag").orElse(""), startsWith("W/"));
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+      assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8), is(plain));
+    }
+  }
+
+  @Test
+  void restWritesEvict() {
+    TestRestTemplate admin = restTemplate.withBasicAuth("admin", "admin123");
+    String name = user.getForObject("/packages/BC", Map.class).get("name").toString();
+    user.getForObject("/packages", String.class);
+    try {
+      admin.exchange("/packages/BC", HttpMethod.PATCH, new HttpEntity<>(Map.of("name", "Renamed Package")),
+          String.class);
+      assertThat(user.getForObject("/packages", String.class), containsString("Renamed Package"));
+    } finally {
+      admin.exchange("/packages/BC", HttpMethod.PATCH, new HttpEntity<>(Map.of("name", name)), String.class);
+    }
+    assertThat(user.getForObject("/packages", String.class), containsString(name));
+  }
+
+  // The JDK client leaves the body encoded, unlike the one behind TestRestTemplate
+  private HttpResponse<byte[]> get(String acceptEncoding) throws IOException, InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/packages"))
+        .header("Authorization", "Basic " + Base64.getEncoder().encodeToString("user:password".getBytes()))
+        .header("Accept-Encoding", acceptEncoding)
+        .build();
+    HttpClient client = HttpClient.newHttpClient();
+    // the second request is the hit, and both vary by encoding
+    HttpResponse<byte[]> miss = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    HttpResponse<byte[]> hit = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    for (HttpResponse<byte[]> response : List.of(miss, hit)) {
+      assertThat(response.headers().allValues("Vary"), hasItem(containsString("Accept-Encoding")));
+    }
+    return hit;
+  }
+}
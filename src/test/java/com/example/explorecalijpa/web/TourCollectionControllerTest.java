@@ -0,0 +1,116 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Collection endpoints return tour summaries, the item endpoint the full tour.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class TourCollectionControllerTest {
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Test
+  void collectionsReturnSummaries() {
+    for (String url : List.of("/tours?size=5", "/tours/search/findByDifficulty?diff=Easy",
+        "/tours/search/findByTourPackageCode?code=BC", "/tours/search/findByPriceBetween?min=0&max=5000")) {
+      ResponseEntity<String> response = restTemplate.withBasicAuth("user", "password").getForEntity(url,
+          String.class);
+      assertThat(url, response.getStatusCode(), is(HttpStatus.OK));
+      List<Map<String, Object>> tours = JsonPath.read(response.getBody(), "$._embedded.tours");
+      assertThat(url, tours.isEmpty(), is(false));
+      for (Map<String, Object> tour : tours) {
+        assertThat(url, tour, hasKey("title"));
+        assertThat(url, tour, hasKey("price"));
+        assertThat(url, tour, not(hasKey("description")));
+        assertThat(url, JsonPath.read(tour, "$._links.self.href"), endsWith("/tours/" + tour.get("id")));
+      }
+    }
+  }
+
+  @Test
+  void searchesStayDiscoverable() {
+    TestRestTemplate user = restTemplate.withBasicAuth("user", "password");
+    ResponseEntity<String> searches = user.getForEntity("/tours/search", String.class);
+    assertThat(searches.getStatusCode(), is(HttpStatus.OK));
+    Map<String, Object> links = JsonPath.read(searches.getBody(), "$._links");
+    assertThat(links.keySet(), hasItems("findByDifficulty", "findByTourPackageCode", "findByPriceBetween", "text"));
+
+    ResponseEntity<String> hits = user.getForEntity("/tours/search/text?q=big sur", String.class);
+    assertThat(hits.getStatusCode(), is(HttpStatus.OK));
+    assertThat(JsonPath.<List<Object>>read(hits.getBody(), "$").isEmpty(), is(false));
+  }
+
+  @Test
+  void filterFollowsPackageLinks() {
+    TestRestTemplate user = restTemplate.withBasicAuth("user", "password");
+    String url = "/tours/filter?region=Central_Coast&package=CY";
+    int before = JsonPath.<List<Object>>read(user.getForEntity(url, String.class).getBody(), "$.tours").size();
+
+    // tour 1 is a Central Coast tour of BC
+    assertThat(linkPackage(1, "CY"), is(HttpStatus.NO_CONTENT));
+    try {
+      String body = user.getForEntity(url, String.class).getBody();
+      List<Integer> ids = JsonPath.read(body, "$.tours[*].tourId");
+      assertThat(ids.size(), is(before + 1));
+      assertThat(ids, hasItems(1));
+      assertThat(JsonPath.read(body, "$.packageCodeCounts.CY"), is(before + 1));
+    } finally {
+      assertThat(linkPackage(1, "BC"), is(HttpStatus.NO_CONTENT));
+    }
+  }
+
+  private HttpStatus linkPackage(int tourId, String code) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.parseMediaType("text/uri-list"));
+    return HttpStatus.valueOf(restTemplate.withBasicAuth("admin", "admin123")
+        .exchange("/tours/" + tourId + "/tourPackage", HttpMethod.PUT,
+            new HttpEntity<>(restTemplate.getRootUri() + "/packages/" + code, headers), String.class)
+        .getStatusCode().value());
+  }
+
+  @Test
+  void toursByIdReportMissingIds() {
+    ResponseEntity<String> response = restTemplate.withBasicAuth("user", "password")
+        .getForEntity("/tours?ids=3,1,999,3", String.class);
+    assertThat(response.getStatusCode(), is(HttpStatus.OK));
+    List<Integer> ids = JsonPath.read(response.getBody(), "$._embedded.tours[*].id");
+    assertThat(ids, contains(3, 1));
+    List<Integer> missing = JsonPath.read(response.getBody(), "$.missingIds");
+    assertThat(missing, contains(999));
+  }
+
+  @Test
+  void itemReturnsFullTour() {
+    ResponseEntity<String> response = restTemplate.withBasicAuth("user", "password").getForEntity("/tours/1",
+        String.class);
+    assertThat(response.getStatusCode(), is(HttpStatus.OK));
+    Map<String, Object> tour = JsonPath.read(response.getBody(), "$");
+    assertThat(tour, hasKey("description"));
+    assertThat(tour, hasKey("bullets"));
+  }
+}
@@ -19,12 +19,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import com.example.explorecalijpa.business.TourRatingService;
 import com.example.explorecalijpa.model.Tour;
 import com.example.explorecalijpa.model.TourRating;
+import com.example.explorecalijpa.repo.TourRatingRow;
 
 import jakarta.validation.ConstraintViolationException;
 
@@ -34,6 +37,7 @@ public class TourRatingControllerTest {
   // These Tour and rating id's do not already exist in the db
   private static final int TOUR_ID = 999;
   private static final int CUSTOMER_ID = 1000;
+  private static final int RATING_ID = 42;
   private static final int SCORE = 3;
   private static final String COMMENT = "comment";
   private static final String TOUR_RATINGS_URL = "/tours/" + TOUR_ID + "/ratings";
@@ -55,6 +59,8 @@ public class TourRatingControllerTest {
 
   private RatingDto ratingDto = new RatingDto(SCORE, COMMENT, CUSTOMER_ID);
 
+  private TourRatingRow ratingRow = new TourRatingRow(RATING_ID, TOUR_ID, CUSTOMER_ID, SCORE, COMMENT);
+
   @BeforeEach
   void setUp() {
     this.userRestTemplate = restTemplate.withBasicAuth("user", "password");
@@ -73,10 +79,25 @@ public class TourRatingControllerTest {
     verify(this.serviceMock).delete(TOUR_ID, CUSTOMER_ID);
   }
 
+  @Test
+  void testGetRatingsForTour() {
+    when(serviceMock.lookupRatings(anyInt(), any(), anyInt()))
+        .thenReturn(Window.from(List.of(ratingRow), i -> ScrollPosition.keyset(), true));
+    ResponseEntity<RatingPageDto> res = userRestTemplate.getForEntity(TOUR_RATINGS_URL + "?limit=1",
+        RatingPageDto.class);
+
+    assertThat(res.getStatusCode(), is(HttpStatus.OK));
+    verify(serviceMock).lookupRatings(TOUR_ID, null, 1);
+
+    // follow the cursor to the next page
+    userRestTemplate.getForEntity(TOUR_RATINGS_URL + "?limit=1&cursor=" + res.getBody().getNext(), String.class);
+    verify(serviceMock).lookupRatings(TOUR_ID, RATING_ID, 1);
+  }
+
   @Test
   void testGetAllRatingsForTour() {
-    when(serviceMock.lookupRatings(anyInt())).thenReturn(List.of(tourRatingMock));
-    ResponseEntity<String> res = userRestTemplate.getForEntity(TOUR_RATINGS_URL, String.class);
+    when(serviceMock.lookupRatings(anyInt())).thenReturn(List.of(ratingRow));
+    ResponseEntity<String> res = userRestTemplate.getForEntity(TOUR_RATINGS_URL + "?unpaged=true", String.class);
 
     assertThat(res.getStatusCode(), is(HttpStatus.OK));
     verify(serviceMock).lookupRatings(anyInt());
@@ -84,7 +105,7 @@ public class TourRatingControllerTest {
 
   @Test
   void testGetAverage() {
-    when(serviceMock.lookupRatings(anyInt())).thenReturn(List.of(tourRatingMock));
+    when(serviceMock.lookupRatings(anyInt())).thenReturn(List.of(ratingRow));
     ResponseEntity<String> res = userRestTemplate.getForEntity(TOUR_RATINGS_URL + "/average", String.class);
 
     assertThat(res.getStatusCode(), is(HttpStatus.OK));
@@ -122,7 +143,7 @@ public class TourRatingControllerTest {
 
   @Test
   public void test404() {
-    when(serviceMock.lookupRatings(anyInt())).thenThrow(new NoSuchElementException());
+    when(serviceMock.lookupRatings(anyInt(), any(), anyInt())).thenThrow(new NoSuchElementException());
     ResponseEntity<String> res = userRestTemplate.getForEntity(TOUR_RATINGS_URL, String.class);
 
     assertThat(res.getStatusCode(), is(HttpStatus.NOT_FOUND));
@@ -130,7 +151,7 @@ public class TourRatingControllerTest {
 
   @Test
   public void test400() {
-    when(serviceMock.lookupRatings(anyInt())).thenThrow(new ConstraintViolationException(null));
+    when(serviceMock.lookupRatings(anyInt(), any(), anyInt())).thenThrow(new ConstraintViolationException(null));
     ResponseEntity<String> res = userRestTemplate.getForEntity(TOUR_RATINGS_URL, String.class);
 
     assertThat(res.getStatusCode(), is(HttpStatus.BAD_REQUEST));
@@ -0,0 +1,167 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Load test comparing platform and virtual threads, skipped unless
+ * explorecali.load-test is true. Run it once per mode:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=VirtualThreadsLoadTest -Dexplorecali.load-test=true -Dspring.threads.virtual.enabled=false
+ * ./mvnw test -Dtest=VirtualThreadsLoadTest -Dexplorecali.load-test=true -Dspring.threads.virtual.enabled=true
+ * </pre>
+ *
+ * Clients, each with one request in flight, read GET /tours/{id}/ratings for
+ * a warm-up and then a measured period, and the throughput and latencies are
+ * printed. Every statement waits statement-delay to stand in for a MySQL
+ * round trip against the in-memory database. Tunable with
+ * explorecali.load-test.clients (200), .statement-delay (5ms), .warm-up (8s)
+ * and .duration (20s).
+ */
+@EnabledIfSystemProperty(named = "explorecali.load-test", matches = "true")
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+    "explorecali.response-cache.enabled=false",
+    "logging.level.com.example=WARN",
+    "logging.level.org.springframework.security=WARN",
+    "logging.level.org.hibernate=WARN" })
+public class VirtualThreadsLoadTest {
+  private static final int TOURS = 20;
+
+  @LocalServerPort
+  private int port;
+
+  @Value("${spring.threads.virtual.enabled:false}")
+  private boolean virtualThreads;
+
+  @Value("${explorecali.load-test.clients:200}")
+  private int clients;
+
+  @Value("${explorecali.load-test.warm-up:8s}")
+  private Duration warmUp;
+
+  @Value("${explorecali.load-test.duration:20s}")
+  private Duration duration;
+
+  @TestConfiguration
+  static class SlowStatements {
+
+    @Bean
+    static BeanPostProcessor slowStatementsPostProcessor(
+        @Value("${explorecali.load-test.statement-delay:5ms}") Duration delay) {
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+              ? delayed(DataSource.class, dataSource, delay)
+              : bean;
+        }
+      };
+    }
+
+    // Proxy target so the connections it hands out delay every statement execution
+    private static <T> T delayed(Class<T> type, T target, Duration delay) {
+      return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+        if (target instanceof PreparedStatement && method.getName().startsWith("execute")) {
+          Thread.sleep(delay);
+        }
+        Object result;
+        try {
+          result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+        if (result instanceof PreparedStatement statement && method.getReturnType() == PreparedStatement.class) {
+          return delayed(PreparedStatement.class, statement, delay);
+        }
+        if (result instanceof Connection connection && method.getReturnType() == Connection.class) {
+          return delayed(Connection.class, connection, delay);
+        }
+        return result;
+      }));
+    }
+  }
+
+  @Test
+  void load() throws InterruptedException {
+    HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    run(client, warmUp);
+    Result result = run(client, duration);
+
+    System.out.printf("%s threads, %d clients: %.1f req/s, p50 %d ms, p99 %d ms, %d errors%n",
+        virtualThreads ? "virtual" : "platform", clients,
+        result.latencies().size() / (double) duration.toSeconds(), result.percentile(50), result.percentile(99),
+        result.errors());
+    assertThat(result.errors(), is(0));
+  }
+
+  private Result run(HttpClient client, Duration period) throws InterruptedException {
+    String authorization = "Basic "
+        + Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+    ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+    AtomicInteger errors = new AtomicInteger();
+    long end = System.nanoTime() + period.toNanos();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < clients; i++) {
+        HttpRequest request = HttpRequest
+            .newBuilder(URI.create("http://localhost:" + port + "/tours/" + (1 + i % TOURS) + "/ratings?size=5"))
+            .header("Authorization", authorization).build();
+        executor.submit(() -> {
+          while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            try {
+              if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                errors.incrementAndGet();
+              }
+            } catch (Exception e) {
+              errors.incrementAndGet();
+            }
+            latencies.add(System.nanoTime() - start);
+          }
+          return null;
+        });
+      }
+    }
+    List<Long> sorted = new ArrayList<>(latencies);
+    Collections.sort(sorted);
+    return new Result(sorted, errors.get());
+  }
+
+  private record Result(List<Long> latencies, int errors) {
+    long percentile(int percentile) {
+      return latencies.isEmpty() ? 0
+          : Duration.ofNanos(latencies.get(latencies.size() * percentile / 100)).toMillis();
+    }
+  }
+}
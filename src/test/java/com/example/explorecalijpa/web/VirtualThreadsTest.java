@@ -0,0 +1,73 @@
+package com.example.explorecalijpa.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * In virtual-thread mode Tomcat serves requests on virtual threads, and a
+ * virtual thread blocking while pinned to its carrier is reported.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "spring.threads.virtual.enabled=true")
+public class VirtualThreadsTest {
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private ServletWebServerApplicationContext context;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  void requestsRunOnVirtualThreads() {
+    TomcatWebServer server = (TomcatWebServer) context.getWebServer();
+    assertThat(server.getTomcat().getConnector().getProtocolHandler().getExecutor(),
+        instanceOf(VirtualThreadExecutor.class));
+    assertThat(restTemplate.withBasicAuth("user", "password").getForEntity("/tours/1", String.class)
+        .getStatusCode(), is(HttpStatus.OK));
+  }
+
+  @Test
+  void pinningIsReported() throws InterruptedException {
+    Object monitor = new Object();
+    Thread.ofVirtual().start(() -> {
+      synchronized (monitor) {
+        sleep(100);
+      }
+    }).join();
+
+    // JFR streams its events about once a second
+    Timer pinned = meterRegistry.get("explorecali.virtual_threads.pinned").timer();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (pinned.count() == 0 && System.nanoTime() < deadline) {
+      sleep(100);
+    }
+    assertThat(pinned.count(), greaterThan(0L));
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}